@@ -0,0 +1,44 @@
+package benchmark;
+
+import extractor.ProjectAnalysis;
+import java.util.concurrent.TimeUnit;
+import model.ProjectAnalysisDifferences;
+import model.ProjectAnalysisQuality;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ProjectAnalysis#processDifferences} between the base and target analyses of a project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DifferencesBenchmark {
+
+  @Param({"10000", "100000", "1000000", "5000000"})
+  private int issues;
+
+  private ProjectAnalysisQuality pair;
+
+  @Setup
+  public void setUp() {
+    pair = SyntheticProjects.pair("differences", issues, 42);
+  }
+
+  @Benchmark
+  public ProjectAnalysisDifferences processDifferences() {
+    return ProjectAnalysis.processDifferences(pair.getBaseComponentResult(), pair.getTargetComponentResult());
+  }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.Issue;
+import model.ProjectAnalysisQuality;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link Issue#hashCode()} and {@link Issue#equals(Object)} over every issue of a project, as hash sets of issues
+ * call them. Both use the issue fingerprints, computed during the first iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IssueBenchmark {
+
+  @Param({"10000", "100000", "1000000", "5000000"})
+  private int issues;
+
+  private List<Issue> baseIssues;
+  private List<Issue> targetIssues;
+
+  @Setup
+  public void setUp() {
+    ProjectAnalysisQuality pair = SyntheticProjects.pair("issues", issues, 42);
+    baseIssues = pair.getBaseComponentResult().getIssues();
+    targetIssues = pair.getTargetComponentResult().getIssues();
+  }
+
+  @Benchmark
+  public void hashCodes(Blackhole blackhole) {
+    for (Issue issue : baseIssues) {
+      blackhole.consume(issue.hashCode());
+    }
+  }
+
+  @Benchmark
+  public void equalsAcrossAnalyses(Blackhole blackhole) {
+    int count = Math.min(baseIssues.size(), targetIssues.size());
+    for (int i = 0; i < count; i++) {
+      blackhole.consume(baseIssues.get(i).equals(targetIssues.get(i)));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import extractor.ProjectAnalysis;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import model.ProjectAnalysisQuality;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import task.AnalysisQualityProcessing;
+
+/**
+ * {@link AnalysisQualityProcessing#process} of a corpus of ten projects whose differences are already computed,
+ * reports included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class QualityProcessingBenchmark {
+
+  private static final int PROJECTS = 10;
+
+  // Issues of the whole corpus
+  @Param({"10000", "100000", "1000000", "5000000"})
+  private int issues;
+
+  private Path outputFolder;
+  private List<ProjectAnalysisQuality> projects;
+
+  @Setup
+  public void setUp() throws IOException {
+    outputFolder = Files.createTempDirectory("processing-benchmark");
+    projects = new ArrayList<>();
+    for (int i = 0; i < PROJECTS; i++) {
+      projects.add(ProjectAnalysis.processDifferences(SyntheticProjects.pair("project" + i, issues / PROJECTS, i)));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(outputFolder)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void process() throws IOException {
+    new AnalysisQualityProcessing(true, outputFolder + "/").process(projects);
+  }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import extractor.SnapshotStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import model.ProjectAnalysisQuality;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading of a project snapshot from disk through {@link SnapshotStore}, as {@code AnalysisResultFromFile} does, in
+ * the binary format and in the JSON format it replaced, fully or through a mapped binary snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotDecodeBenchmark {
+
+  @Param({"10000", "100000", "1000000", "5000000"})
+  private int issues;
+
+  @Param({"binary", "json"})
+  private String format;
+
+  private Path folder;
+  private SnapshotStore snapshotStore;
+  private String projectKey;
+
+  @Setup
+  public void setUp() throws IOException {
+    folder = Files.createTempDirectory("snapshot-benchmark");
+    snapshotStore = new SnapshotStore(folder.toString());
+    ProjectAnalysisQuality pair = SyntheticProjects.pair("snapshot", issues, 42);
+    projectKey = pair.getBaseComponent().getKey();
+    if (format.equals("json")) {
+      SnapshotStore.writeJson(pair, snapshotStore.path(projectKey));
+    } else {
+      snapshotStore.write(pair);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(folder)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public ProjectAnalysisQuality load() {
+    return snapshotStore.load(projectKey).orElseThrow();
+  }
+
+  /**
+   * Maps the snapshot and goes once through its issues, decoded on access for the binary format.
+   */
+  @Benchmark
+  public long mapAndScan() throws IOException {
+    ProjectAnalysisQuality mapped = SnapshotStore.map(snapshotStore.path(projectKey));
+    return mapped.getBaseComponentResult().getIssues().stream()
+      .filter(issue -> issue.getType().equals("BUG"))
+      .count();
+  }
+}
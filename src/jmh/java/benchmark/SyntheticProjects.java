@@ -0,0 +1,120 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.Component;
+import model.Issue;
+import model.ProjectAnalysisQuality;
+import model.ProjectAnalysisResult;
+import model.QualityProfile;
+import model.Rule;
+import model.TextRange;
+
+/**
+ * Deterministic old/new project pairs shaped like the extracted corpus: issues spread over files, a few hundred rules,
+ * and a target analysis that differs from the base one by a small fraction of moved, missing and added issues.
+ */
+final class SyntheticProjects {
+
+  private static final int RULES = 400;
+  private static final int ISSUES_PER_FILE = 20;
+  // Files of a project are compared pairwise by processDifferences: keep the largest projects within reach
+  private static final int MAX_FILES = 20_000;
+  private static final double CHANGED_RATIO = 0.05;
+  private static final String RULE_REPOSITORY = "csharpsquid";
+
+  private SyntheticProjects() {
+  }
+
+  static ProjectAnalysisQuality pair(String name, int issueCount, long seed) {
+    Random random = new Random(seed);
+    int fileCount = Math.max(1, Math.min(issueCount / ISSUES_PER_FILE, MAX_FILES));
+    List<Component> baseFiles = files("autoscan-old-" + name, fileCount);
+    List<Component> targetFiles = files("autoscan-new-" + name, fileCount);
+
+    List<Issue> baseIssues = new ArrayList<>(issueCount);
+    List<Issue> targetIssues = new ArrayList<>(issueCount);
+    for (int i = 0; i < issueCount; i++) {
+      int file = random.nextInt(fileCount);
+      String rule = RULE_REPOSITORY + ":S" + (100 + random.nextInt(RULES));
+      int line = 1 + random.nextInt(2_000);
+      baseIssues.add(issue("base-" + i, rule, baseFiles.get(file).getKey(), line));
+
+      double change = random.nextDouble();
+      if (change < CHANGED_RATIO / 3) {
+        // Missing in the target
+        continue;
+      }
+      int targetLine = change < 2 * CHANGED_RATIO / 3 ? line + 1 : line;
+      targetIssues.add(issue("target-" + i, rule, targetFiles.get(file).getKey(), targetLine));
+      if (change > 1 - CHANGED_RATIO / 3) {
+        targetIssues.add(issue("added-" + i, rule, targetFiles.get(random.nextInt(fileCount)).getKey(), line));
+      }
+    }
+
+    ProjectAnalysisQuality pair = new ProjectAnalysisQuality();
+    pair.setBaseComponent(project("autoscan-old-" + name));
+    pair.setTargetComponent(project("autoscan-new-" + name));
+    pair.setBaseComponentResult(result(baseIssues, baseFiles));
+    pair.setTargetComponentResult(result(targetIssues, targetFiles));
+    return pair;
+  }
+
+  private static List<Component> files(String projectKey, int count) {
+    List<Component> files = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Component file = new Component();
+      file.setKey(projectKey + ":src/Module" + (i % 50) + "/File" + i + ".cs");
+      file.setName("File" + i + ".cs");
+      file.setQualifier("FIL");
+      file.setLanguage("cs");
+      files.add(file);
+    }
+    return files;
+  }
+
+  private static Issue issue(String key, String rule, String component, int line) {
+    TextRange textRange = new TextRange();
+    textRange.setStartLine(line);
+    textRange.setEndLine(line);
+    textRange.setStartOffset(4);
+    textRange.setEndOffset(32);
+
+    Issue issue = new Issue();
+    issue.setKey(key);
+    issue.setRule(rule);
+    issue.setSeverity("MAJOR");
+    issue.setStatus("OPEN");
+    issue.setType(line % 7 == 0 ? "BUG" : "CODE_SMELL");
+    issue.setComponent(component);
+    issue.setTextRange(textRange);
+    return issue;
+  }
+
+  private static Component project(String key) {
+    Component project = new Component();
+    project.setKey(key);
+    project.setName(key);
+    project.setQualifier("TRK");
+    return project;
+  }
+
+  private static ProjectAnalysisResult result(List<Issue> issues, List<Component> files) {
+    List<Rule> rules = new ArrayList<>(RULES);
+    for (int i = 0; i < RULES; i++) {
+      rules.add(new Rule(RULE_REPOSITORY, RULE_REPOSITORY + ":S" + (100 + i), "MAJOR"));
+    }
+    QualityProfile qualityProfile = new QualityProfile();
+    qualityProfile.setKey("synthetic-profile");
+    qualityProfile.setLanguage("cs");
+    qualityProfile.setRules(rules);
+
+    ProjectAnalysisResult result = new ProjectAnalysisResult()
+      .setIssues(issues)
+      .setServerVersion("10.0")
+      .setQualityProfiles(List.of(qualityProfile));
+    result.setComponents(files);
+    return result;
+  }
+}
@@ -0,0 +1,130 @@
+package extractor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.INFO;
+
+/**
+ * Additive-increase / multiplicative-decrease limit on the number of requests in flight.
+ * <p>
+ * The limit grows by roughly one per round of successful requests while latency stays close to the
+ * smoothed baseline, and is cut by {@link #BACKOFF_RATIO} when the server throttles (429), fails (5xx),
+ * or answers much slower than usual. Each endpoint has its own baseline: a page of issues is naturally much slower
+ * than the server version, and is only compared with other pages of issues. Requests over the limit wait in a FIFO
+ * queue.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final Logger LOGGER = Logger.getLogger(AdaptiveConcurrencyLimiter.class.getName());
+
+  public static final int DEFAULT_INITIAL_LIMIT = 10;
+  public static final int DEFAULT_MIN_LIMIT = 1;
+  public static final int DEFAULT_MAX_LIMIT = 256;
+
+  private static final double BACKOFF_RATIO = 0.5;
+  private static final double LATENCY_TOLERANCE = 2.0;
+  private static final double BASELINE_SMOOTHING = 0.05;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+  private double limit;
+  private int inFlight;
+  // By endpoint path
+  private final Map<String, Double> baselineLatencyNanos = new HashMap<>();
+  private long lastDecreaseNanos;
+
+  public AdaptiveConcurrencyLimiter() {
+    this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+  }
+
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+  }
+
+  /**
+   * Completes once the caller may send its request. Every acquisition must be followed by one {@link #release}.
+   */
+  public synchronized CompletableFuture<Void> acquire() {
+    if (waiters.isEmpty() && inFlight < getLimit()) {
+      inFlight++;
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> waiter = new CompletableFuture<>();
+    waiters.add(waiter);
+    return waiter;
+  }
+
+  /**
+   * @param endpoint     path of the request, whose latency is compared with the baseline of that path only
+   * @param latencyNanos time between sending the request and receiving its response headers
+   * @param overloaded   whether the server signaled overload (throttling, server error or transport failure)
+   */
+  public void release(String endpoint, long latencyNanos, boolean overloaded) {
+    List<CompletableFuture<Void>> granted = new ArrayList<>();
+    synchronized (this) {
+      inFlight--;
+      double baseline = baselineLatencyNanos.getOrDefault(endpoint, 0.0);
+      if (overloaded || isLatencySpike(baseline, latencyNanos)) {
+        decrease(baseline);
+      } else {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+      baselineLatencyNanos.put(endpoint, baseline == 0
+        ? latencyNanos
+        : baseline + BASELINE_SMOOTHING * (latencyNanos - baseline));
+
+      while (!waiters.isEmpty() && inFlight < getLimit()) {
+        inFlight++;
+        granted.add(waiters.poll());
+      }
+    }
+    // Completing outside the lock: dependent stages send their request on this thread
+    granted.forEach(waiter -> waiter.complete(null));
+  }
+
+  private static boolean isLatencySpike(double baselineNanos, long latencyNanos) {
+    return baselineNanos > 0 && latencyNanos > baselineNanos * LATENCY_TOLERANCE;
+  }
+
+  private void decrease(double baselineNanos) {
+    long now = System.nanoTime();
+    // Responses already in flight report the same overload: cut at most once per baseline round trip
+    if (now - lastDecreaseNanos < baselineNanos) {
+      return;
+    }
+    lastDecreaseNanos = now;
+    int previous = getLimit();
+    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    LOGGER.log(INFO, "Concurrency limit decreased from {0} to {1} ({2} queued)",
+      new Object[] {previous, getLimit(), waiters.size()});
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public synchronized int getQueueDepth() {
+    return waiters.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("limit=%d inFlight=%d queued=%d baselines=%d endpoints",
+      getLimit(), inFlight, waiters.size(), baselineLatencyNanos.size());
+  }
+}
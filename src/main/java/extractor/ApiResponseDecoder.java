@@ -0,0 +1,294 @@
+package extractor;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import model.Component;
+import model.ComponentIssues;
+import model.ComponentTree;
+import model.Facet;
+import model.FacetValue;
+import model.Issue;
+import model.Paging;
+import model.TextRange;
+
+/**
+ * Streaming decoders for the two largest responses, {@code /api/issues/search} and {@code /api/components/tree}.
+ * Objects are built field by field straight from the response body; everything the model does not keep
+ * (flows, comments, messages, tags, ...) is skipped without being materialized.
+ */
+class ApiResponseDecoder {
+
+  private static final TypeAdapter<Date> DATE_ADAPTER = new Gson().getAdapter(Date.class);
+
+  private ApiResponseDecoder() {
+  }
+
+  static ComponentIssues decodeComponentIssues(InputStream body, StringPool stringPool) throws IOException {
+    ComponentIssues componentIssues = new ComponentIssues();
+    Paging paging = null;
+    boolean hasTotal = false;
+    try (JsonReader reader = jsonReader(body)) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "total":
+            componentIssues.setTotal(reader.nextInt());
+            hasTotal = true;
+            break;
+          case "paging":
+            paging = readPaging(reader);
+            break;
+          case "issues":
+            componentIssues.setIssues(readIssues(reader, stringPool));
+            break;
+          case "facets":
+            componentIssues.setFacets(readFacets(reader));
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+    if (!hasTotal && paging != null) {
+      componentIssues.setTotal(paging.getTotal());
+    }
+    return componentIssues;
+  }
+
+  static ComponentTree decodeComponentTree(InputStream body, StringPool stringPool) throws IOException {
+    ComponentTree componentTree = new ComponentTree();
+    try (JsonReader reader = jsonReader(body)) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "paging":
+            componentTree.setPaging(readPaging(reader));
+            break;
+          case "components":
+            componentTree.setComponents(readComponents(reader, stringPool));
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+    return componentTree;
+  }
+
+  private static JsonReader jsonReader(InputStream body) {
+    return new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+  }
+
+  private static Paging readPaging(JsonReader reader) throws IOException {
+    Paging paging = new Paging();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "pageIndex":
+          paging.setPageIndex(reader.nextInt());
+          break;
+        case "pageSize":
+          paging.setPageSize(reader.nextInt());
+          break;
+        case "total":
+          paging.setTotal(reader.nextInt());
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return paging;
+  }
+
+  private static List<Facet> readFacets(JsonReader reader) throws IOException {
+    List<Facet> facets = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      Facet facet = new Facet();
+      List<FacetValue> values = new ArrayList<>();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "property":
+            facet.setProperty(nextStringOrNull(reader));
+            break;
+          case "values":
+            reader.beginArray();
+            while (reader.hasNext()) {
+              values.add(readFacetValue(reader));
+            }
+            reader.endArray();
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+      facet.setValues(values);
+      facets.add(facet);
+    }
+    reader.endArray();
+    return facets;
+  }
+
+  private static FacetValue readFacetValue(JsonReader reader) throws IOException {
+    FacetValue value = new FacetValue();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "val":
+          value.setVal(nextStringOrNull(reader));
+          break;
+        case "count":
+          value.setCount(reader.nextInt());
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return value;
+  }
+
+  private static List<Issue> readIssues(JsonReader reader, StringPool stringPool) throws IOException {
+    List<Issue> issues = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      issues.add(readIssue(reader, stringPool));
+    }
+    reader.endArray();
+    return issues;
+  }
+
+  private static Issue readIssue(JsonReader reader, StringPool stringPool) throws IOException {
+    Issue issue = new Issue();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "key":
+          issue.setKey(nextStringOrNull(reader));
+          break;
+        case "rule":
+          issue.setRule(nextStringOrNull(reader));
+          break;
+        case "severity":
+          issue.setSeverity(nextStringOrNull(reader));
+          break;
+        case "status":
+          issue.setStatus(nextStringOrNull(reader));
+          break;
+        case "type":
+          issue.setType(nextStringOrNull(reader));
+          break;
+        case "component":
+          issue.setComponent(nextStringOrNull(reader));
+          break;
+        case "textRange":
+          issue.setTextRange(readTextRange(reader));
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    PooledTypeAdapterFactory.pool(issue, stringPool);
+    return issue;
+  }
+
+  private static TextRange readTextRange(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    TextRange textRange = new TextRange();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "startLine":
+          textRange.setStartLine(reader.nextInt());
+          break;
+        case "endLine":
+          textRange.setEndLine(reader.nextInt());
+          break;
+        case "startOffset":
+          textRange.setStartOffset(reader.nextInt());
+          break;
+        case "endOffset":
+          textRange.setEndOffset(reader.nextInt());
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return textRange;
+  }
+
+  private static List<Component> readComponents(JsonReader reader, StringPool stringPool) throws IOException {
+    List<Component> components = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      components.add(readComponent(reader, stringPool));
+    }
+    reader.endArray();
+    return components;
+  }
+
+  private static Component readComponent(JsonReader reader, StringPool stringPool) throws IOException {
+    Component component = new Component();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "organization":
+          component.setOrganization(nextStringOrNull(reader));
+          break;
+        case "key":
+          component.setKey(nextStringOrNull(reader));
+          break;
+        case "name":
+          component.setName(nextStringOrNull(reader));
+          break;
+        case "qualifier":
+          component.setQualifier(nextStringOrNull(reader));
+          break;
+        case "language":
+          component.setLanguage(nextStringOrNull(reader));
+          break;
+        case "analysisDate":
+          component.setAnalysisDate(DATE_ADAPTER.read(reader));
+          break;
+        case "eligibilityStatus":
+          component.setEligibilityStatus(nextStringOrNull(reader));
+          break;
+        case "eligible":
+          component.setEligible(reader.nextBoolean());
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    PooledTypeAdapterFactory.pool(component, stringPool);
+    return component;
+  }
+
+  private static String nextStringOrNull(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    return reader.nextString();
+  }
+}
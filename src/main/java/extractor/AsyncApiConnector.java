@@ -0,0 +1,778 @@
+package extractor;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import model.Component;
+import model.ComponentIssues;
+import model.ComponentRules;
+import model.ComponentSearchProjects;
+import model.ComponentTree;
+import model.ExtractionStats;
+import model.Issue;
+import model.NavigationComponent;
+import model.PluginsInstalled;
+import model.ProjectBranch;
+import model.ProjectBranches;
+import model.QualityProfile;
+import model.QualityProfiles;
+import model.Rule;
+import model.measure.ComponentMeasure;
+import model.measure.ComponentMeasureContent;
+import model.measure.ComponentTreeMeasures;
+import model.measure.Measure;
+import org.apache.http.HttpHeaders;
+import replay.FixtureStore;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Non-blocking counterpart of {@link ApiConnector}: every call is sent with {@link HttpClient#sendAsync} and
+ * returns a {@link CompletableFuture}, so a handful of threads can keep many requests in flight.
+ */
+public class AsyncApiConnector {
+
+  private static final Logger LOGGER = Logger.getLogger(AsyncApiConnector.class.getName());
+
+  public static final int PAGE_SIZE = 500;
+  public static final int MAX_PAGE_FAN_OUT = 4;
+  public static final String DEFAULT_ANALYSIS_BRANCH = "master";
+  public static final int MAX_ATTEMPTS = 5;
+
+  private static final int HTTP_NOT_MODIFIED = 304;
+  private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+  private static final Duration BASE_RETRY_DELAY = Duration.ofMillis(500);
+  private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(60);
+  private static final int DEFAULT_DECODE_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  private static final String API_COMPONENTS_TREE = "/api/components/tree";
+  private static final String API_COMPONENTS_SEARCH = "/api/components/search";
+  private static final String API_ISSUES_SEARCH = "/api/issues/search";
+  private static final String API_SERVER_VERSION = "/api/server/version";
+  private static final String API_PLUGINS_INSTALLED = "/api/plugins/installed";
+  private static final String API_NAVIGATION_COMPONENT = "/api/navigation/component";
+  private static final String API_MEASURE_COMPONENT = "/api/measures/component";
+  private static final String API_MEASURES_COMPONENT_TREE = "/api/measures/component_tree";
+  private static final String API_RULE_SEARCH = "/api/rules/search";
+  private static final String API_QUALITY_PROFILES_SEARCH = "/api/qualityprofiles/search";
+  private static final String API_PROJECT_BRANCHES_LIST = "/api/project_branches/list";
+
+  private static HashSet<String> EXCLUDED_RULES = new HashSet<String>(
+    List.of(
+        "S5131",
+        "S2083",
+        "S2078",
+        "S2076",
+        "S5883",
+        "S6350",
+        "S2631",
+        "S3649",
+        "S2091",
+        "S5144",
+        "S5145",
+        "S5146",
+        "S5167",
+        "S5135",
+        "S5334",
+        "S6096",
+        "S6287",
+        "S2228",
+        "S3900",
+        "S3904",
+        "S3992",
+        "S1128"));
+
+  private final String baseUrl;
+  private final HttpClient httpClient;
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final RetryBudget retryBudget;
+  private Executor decodeExecutor;
+  // By endpoint path and project key
+  private final Map<String, EndpointStatistics> endpointStatistics = new ConcurrentHashMap<>();
+  // Requests being sent, and run-wide results, by URI: each endpoint is always decoded the same way
+  private final Map<URI, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+  private final Map<URI, CompletableFuture<?>> memoized = new ConcurrentHashMap<>();
+  private final LongAdder coalescedRequests = new LongAdder();
+  private final LongAdder memoizedRequests = new LongAdder();
+  // Strings repeated by the responses of the run, dropped with the connector
+  private final StringPool stringPool = new StringPool();
+  private final Gson gson = PooledTypeAdapterFactory.gson(stringPool);
+  private ResponseCache responseCache;
+  private FixtureStore fixtureRecorder;
+
+  public AsyncApiConnector(String baseUrl) {
+    this(baseUrl, HttpClient.newHttpClient());
+  }
+
+  public AsyncApiConnector(String baseUrl, HttpClient httpClient) {
+    this(baseUrl, httpClient, new AdaptiveConcurrencyLimiter(), new RetryBudget());
+  }
+
+  public AsyncApiConnector(String baseUrl, HttpClient httpClient, AdaptiveConcurrencyLimiter limiter, RetryBudget retryBudget) {
+    this.baseUrl = baseUrl;
+    this.httpClient = httpClient;
+    this.limiter = limiter;
+    this.retryBudget = retryBudget;
+    this.decodeExecutor = Executors.newFixedThreadPool(DEFAULT_DECODE_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "api-body-decoder");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public AdaptiveConcurrencyLimiter getLimiter() {
+    return limiter;
+  }
+
+  public RetryBudget getRetryBudget() {
+    return retryBudget;
+  }
+
+  public Collection<EndpointStatistics> getEndpointStatistics() {
+    return Collections.unmodifiableCollection(endpointStatistics.values());
+  }
+
+  /**
+   * Requests answered by joining an identical request already in flight.
+   */
+  public long getCoalescedRequests() {
+    return coalescedRequests.sum();
+  }
+
+  /**
+   * Requests answered from results memoized for the whole run.
+   */
+  public long getMemoizedRequests() {
+    return memoizedRequests.sum();
+  }
+
+  /**
+   * Executor reading and decoding response bodies, which blocks until each transfer completes. Defaults to a fixed
+   * pool of {@link #DEFAULT_DECODE_THREADS} threads.
+   */
+  public AsyncApiConnector withDecodeExecutor(Executor decodeExecutor) {
+    this.decodeExecutor = decodeExecutor;
+    return this;
+  }
+
+  /**
+   * Records every response body, including those served from the response cache, as a replayable fixture.
+   */
+  public AsyncApiConnector withFixtureRecorder(FixtureStore fixtureRecorder) {
+    this.fixtureRecorder = fixtureRecorder;
+    return this;
+  }
+
+  public AsyncApiConnector withResponseCache(ResponseCache responseCache) {
+    this.responseCache = responseCache;
+    return this;
+  }
+
+  public CompletableFuture<List<Component>> getAllComponents(String projectKey, String qualifier, ExtractionStats stats) {
+    return getComponentTree(1, projectKey, qualifier, stats).thenCompose(firstPage -> {
+      if (firstPage.isEmpty() || firstPage.get().getComponents() == null) {
+        return CompletableFuture.completedFuture(new ArrayList<>());
+      }
+
+      List<Component> components = new ArrayList<>(firstPage.get().getComponents());
+      int total = firstPage.get().getPaging() != null ? firstPage.get().getPaging().getTotal() : components.size();
+      return fetchRemainingPages(pageCount(total), page -> getComponentTree(page, projectKey, qualifier, stats)
+        .thenApply(tree -> tree.map(ComponentTree::getComponents).orElse(List.of())))
+        .thenApply(pages -> {
+          pages.forEach(components::addAll);
+          return components;
+        });
+    });
+  }
+
+  private CompletableFuture<Optional<ComponentTree>> getComponentTree(int page, String projectKey, String qualifier,
+    ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_COMPONENTS_TREE, renderComponentTreePath(page, projectKey, qualifier));
+    return doHttpRequest(uri, stats, body -> ApiResponseDecoder.decodeComponentTree(body, stringPool))
+      .thenApply(Optional::ofNullable);
+  }
+
+  private String renderComponentTreePath(int page, String projectKey, String qualifier) {
+    return "ps=" + PAGE_SIZE + "&component=" +
+        projectKey + "&p=" + page + "&branch=" + DEFAULT_ANALYSIS_BRANCH + "&qualifiers=" + qualifier;
+  }
+
+  /**
+   * All open issues of the given files. A batch with more issues than the search window is split the way the issues
+   * of a project are, see {@link ProjectIssueSearch}.
+   */
+  public CompletableFuture<List<Issue>> getAllComponentIssues(String componentKeys, ExtractionStats stats) {
+    IssueQuery query = IssueQuery.forComponents(componentKeys);
+    return searchIssues(query, 1, List.of(), stats).thenCompose(firstPage -> {
+      if (firstPage.isEmpty() || firstPage.get().getIssues() == null) {
+        return CompletableFuture.completedFuture(new ArrayList<>());
+      }
+      if (firstPage.get().getTotal() > ProjectIssueSearch.MAX_SEARCH_WINDOW) {
+        return new ProjectIssueSearch(this, Optional.empty(), ExtractionJournal.ProjectJournal.disabled(), stats)
+          .search(query);
+      }
+      return getRemainingIssues(query, firstPage.get(), stats);
+    });
+  }
+
+  /**
+   * All open issues of a project, whatever their number: see {@link ProjectIssueSearch}.
+   */
+  public CompletableFuture<List<Issue>> getAllProjectIssues(String projectKey, ExtractionStats stats) {
+    return getAnalyzedBranch(projectKey, stats)
+      .thenCompose(branch -> getAllProjectIssues(projectKey, branch, ExtractionJournal.ProjectJournal.disabled(), stats));
+  }
+
+  CompletableFuture<List<Issue>> getAllProjectIssues(String projectKey, Optional<ProjectBranch> branch,
+    ExtractionJournal.ProjectJournal journal, ExtractionStats stats) {
+    return new ProjectIssueSearch(this, branch, journal, stats)
+      .search(IssueQuery.forComponents(URLEncoder.encode(projectKey, StandardCharsets.UTF_8)));
+  }
+
+  public CompletableFuture<Optional<ComponentIssues>> searchIssues(IssueQuery query, int page, List<String> facets,
+    ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_ISSUES_SEARCH, query.render(page, PAGE_SIZE, facets));
+    return doHttpRequest(uri, stats, body -> ApiResponseDecoder.decodeComponentIssues(body, stringPool))
+      .thenApply(Optional::ofNullable);
+  }
+
+  /**
+   * Completes the issues of the first page with the following ones, up to the search window of the server. Issues
+   * beyond the window are counted as a failed page, so that the query is not taken as complete.
+   */
+  CompletableFuture<List<Issue>> getRemainingIssues(IssueQuery query, ComponentIssues firstPage, ExtractionStats stats) {
+    List<Issue> totalResult = new ArrayList<>(filterExcludedRules(firstPage.getIssues()));
+    if (firstPage.getTotal() > ProjectIssueSearch.MAX_SEARCH_WINDOW) {
+      stats.incrementFailedPages();
+    }
+    int total = Math.min(firstPage.getTotal(), ProjectIssueSearch.MAX_SEARCH_WINDOW);
+    return fetchRemainingPages(pageCount(total), page -> searchIssues(query, page, List.of(), stats)
+      .thenApply(issues -> issues
+        .map(ComponentIssues::getIssues)
+        .map(AsyncApiConnector::filterExcludedRules)
+        .orElse(List.of())))
+      .thenApply(pages -> {
+        pages.forEach(totalResult::addAll);
+        return totalResult;
+      });
+  }
+
+  private static List<Issue> filterExcludedRules(List<Issue> issues) {
+    return issues.stream()
+      .filter(i -> {
+        var parts = i.getRule().split(":");
+        return parts.length >= 2 && !EXCLUDED_RULES.contains(parts[1]);
+      })
+      .collect(Collectors.toList());
+  }
+
+  private static int pageCount(int total) {
+    return (total + PAGE_SIZE - 1) / PAGE_SIZE;
+  }
+
+  /**
+   * Fetches pages 2..pageCount over {@link #MAX_PAGE_FAN_OUT} lanes, each lane requesting its next page once the
+   * previous one arrived, and returns their content in page order.
+   */
+  private static <T> CompletableFuture<List<List<T>>> fetchRemainingPages(int pageCount,
+    IntFunction<CompletableFuture<List<T>>> fetchPage) {
+    int remaining = Math.max(0, pageCount - 1);
+    AtomicReferenceArray<List<T>> pages = new AtomicReferenceArray<>(remaining);
+    CompletableFuture<?>[] lanes = IntStream.range(0, Math.min(MAX_PAGE_FAN_OUT, remaining))
+      .mapToObj(lane -> {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (int index = lane; index < remaining; index += MAX_PAGE_FAN_OUT) {
+          int pageIndex = index;
+          chain = chain.thenCompose(ignored -> fetchPage.apply(pageIndex + 2)
+            .thenAccept(content -> pages.set(pageIndex, content)));
+        }
+        return chain;
+      })
+      .toArray(CompletableFuture[]::new);
+
+    return CompletableFuture.allOf(lanes).thenApply(ignored -> IntStream.range(0, remaining)
+      .mapToObj(pages::get)
+      .collect(Collectors.toList()));
+  }
+
+  public CompletableFuture<String> getServerVersion(ExtractionStats stats) {
+    URI uri = URI.create(baseUrl + API_SERVER_VERSION);
+    return singleFlight(uri, true, () -> sendRequest(uri, stats, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+  }
+
+  public CompletableFuture<Optional<PluginsInstalled>> getPluginsInstalled(ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_PLUGINS_INSTALLED, "");
+    return singleFlight(uri, true, () -> sendRequest(uri, stats, json(PluginsInstalled.class))).thenApply(Optional::ofNullable);
+  }
+
+  public CompletableFuture<Optional<NavigationComponent>> getNavigationComponent(String projectKey, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_NAVIGATION_COMPONENT, "component=" + projectKey + "&branch=" + DEFAULT_ANALYSIS_BRANCH);
+    return doHttpRequest(uri, stats, json(NavigationComponent.class)).thenApply(Optional::ofNullable);
+  }
+
+  /**
+   * The analyzed branch of a project, with the date and commit of its last analysis.
+   */
+  public CompletableFuture<Optional<ProjectBranch>> getAnalyzedBranch(String projectKey, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_PROJECT_BRANCHES_LIST, "project=" + projectKey);
+    return doHttpRequest(uri, stats, json(ProjectBranches.class)).thenApply(branches -> Optional.ofNullable(branches)
+        .map(ProjectBranches::getBranches)
+        .flatMap(list -> list.stream()
+          .filter(branch -> DEFAULT_ANALYSIS_BRANCH.equals(branch.getName()))
+          .findFirst()));
+  }
+
+  public CompletableFuture<List<Component>> getProjects(List<String> organization, ExtractionStats stats) {
+    List<CompletableFuture<Component>> projects = organization.stream()
+        .map(project -> getProject(project, stats))
+        .collect(Collectors.toList());
+    return CompletableFuture.allOf(projects.toArray(CompletableFuture[]::new))
+        .thenApply(ignored -> projects.stream()
+          .map(CompletableFuture::join)
+          .filter(Objects::nonNull)
+          .collect(Collectors.toList()));
+  }
+
+  public CompletableFuture<Component> getProject(String project, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_COMPONENTS_SEARCH, "qualifiers=TRK&q=" + project);
+    return doHttpRequest(uri, stats, json(ComponentSearchProjects.class)).thenApply(searchProjects -> {
+      try {
+        return searchProjects
+            .getComponents()
+            .stream()
+            .filter(p -> p.getKey().equals(project))
+            .findFirst()
+            .get();
+      } catch (Exception e) {
+        System.err.println("[ERROR] Fail to find project: " + project);
+        return null;
+      }
+    });
+  }
+
+  public CompletableFuture<List<Rule>> getRulesFromQualityProfile(QualityProfile qp, ExtractionStats stats) {
+    return getRulesFromQualityProfile(1, qp, stats).thenCompose(firstPage -> {
+      if (firstPage.isEmpty() || firstPage.get().getRules() == null) {
+        return CompletableFuture.completedFuture(new ArrayList<>());
+      }
+
+      List<Rule> rules = new ArrayList<>(firstPage.get().getRules());
+      return fetchRemainingPages(pageCount(firstPage.get().getTotal()), page -> getRulesFromQualityProfile(page, qp, stats)
+        .thenApply(componentRules -> componentRules.map(ComponentRules::getRules).orElse(List.of())))
+        .thenApply(pages -> {
+          pages.forEach(rules::addAll);
+          return rules;
+        });
+    });
+  }
+
+  private CompletableFuture<Optional<ComponentRules>> getRulesFromQualityProfile(int page, QualityProfile qp, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_RULE_SEARCH,
+        "ps=" + PAGE_SIZE + "&p=" + page + "&languages=" + qp.getLanguage() + "&qprofile=" + qp.getKey() + "&activation=true");
+    return doHttpRequest(uri, stats, json(ComponentRules.class)).thenApply(Optional::ofNullable);
+  }
+
+  public CompletableFuture<List<QualityProfile>> getQualityProfiles(String language, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_QUALITY_PROFILES_SEARCH, "language=" + language);
+    return doHttpRequest(uri, stats, json(QualityProfiles.class)).thenApply(profiles -> Optional.ofNullable(profiles)
+        .map(QualityProfiles::getProfiles)
+        .orElse(new ArrayList<>()));
+  }
+
+  public CompletableFuture<Map<String, Integer>> getLocPerLanguages(String projectKey, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_MEASURE_COMPONENT,
+          "component=" + projectKey +
+          "&metricKeys=ncloc_language_distribution" +
+          "&branch=" + DEFAULT_ANALYSIS_BRANCH);
+    return doHttpRequest(uri, stats, json(ComponentMeasure.class)).thenApply(componentMeasure -> {
+      Map<String, Integer> locPerLanguages = new HashMap<>();
+      if (componentMeasure == null) {
+        return locPerLanguages;
+      }
+      List<Measure> measures = componentMeasure.getComponent().getMeasures();
+      if (measures.isEmpty()) {
+        return locPerLanguages;
+      }
+      String value = measures.get(0).getValue();
+      Arrays.stream(value.split(";"))
+          .map(pair -> pair.split("="))
+          .forEach(p -> locPerLanguages.put(p[0], Integer.parseInt(p[1])));
+      return locPerLanguages;
+    });
+  }
+
+  /**
+   * Values of the given metrics for every component of the given qualifiers, by component key then metric key.
+   */
+  public CompletableFuture<Map<String, Map<String, String>>> getComponentMeasures(String projectKey, String qualifiers,
+    List<String> metricKeys, ExtractionStats stats) {
+    return getComponentTreeMeasures(1, projectKey, qualifiers, metricKeys, stats).thenCompose(firstPage -> {
+      if (firstPage.isEmpty() || firstPage.get().getComponents() == null) {
+        return CompletableFuture.completedFuture(new HashMap<>());
+      }
+
+      List<ComponentMeasureContent> components = new ArrayList<>(firstPage.get().getComponents());
+      int total = firstPage.get().getPaging() != null ? firstPage.get().getPaging().getTotal() : components.size();
+      return fetchRemainingPages(pageCount(total), page -> getComponentTreeMeasures(page, projectKey, qualifiers, metricKeys, stats)
+        .thenApply(tree -> tree.map(ComponentTreeMeasures::getComponents).orElse(List.of())))
+        .thenApply(pages -> {
+          pages.forEach(components::addAll);
+          Map<String, Map<String, String>> measures = new HashMap<>();
+          components.stream()
+            .filter(c -> c.getMeasures() != null)
+            .forEach(c -> measures.put(c.getKey(), c.getMeasures().stream()
+              .filter(m -> m.getValue() != null)
+              .collect(Collectors.toMap(Measure::getMetric, Measure::getValue))));
+          return measures;
+        });
+    });
+  }
+
+  private CompletableFuture<Optional<ComponentTreeMeasures>> getComponentTreeMeasures(int page, String projectKey,
+    String qualifiers, List<String> metricKeys, ExtractionStats stats) {
+    URI uri = createURI(baseUrl, API_MEASURES_COMPONENT_TREE,
+          "ps=" + PAGE_SIZE +
+          "&component=" + projectKey +
+          "&p=" + page +
+          "&metricKeys=" + String.join(",", metricKeys) +
+          "&qualifiers=" + qualifiers +
+          "&strategy=leaves" +
+          "&branch=" + DEFAULT_ANALYSIS_BRANCH);
+    return doHttpRequest(uri, stats, json(ComponentTreeMeasures.class)).thenApply(Optional::ofNullable);
+  }
+
+  private <T> CompletableFuture<T> doHttpRequest(URI uri, ExtractionStats stats, BodyDecoder<T> decoder) {
+    return singleFlight(uri, false, () -> sendRequest(uri, stats, decoder));
+  }
+
+  /**
+   * Shares one request between all identical requests issued while it is in flight, and with {@code memoize} keeps
+   * its result, once decoded, for every later request of the run. Callers share the decoded result: they must not
+   * modify it. Failures and retries are only recorded in the {@code stats} of the request actually sent.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> singleFlight(URI uri, boolean memoize, Supplier<CompletableFuture<T>> request) {
+    CompletableFuture<T> result = (CompletableFuture<T>) memoized.get(uri);
+    if (result != null) {
+      memoizedRequests.increment();
+      return result.copy();
+    }
+    CompletableFuture<T> created = new CompletableFuture<>();
+    CompletableFuture<T> shared = (CompletableFuture<T>) inFlight.putIfAbsent(uri, created);
+    if (shared != null) {
+      coalescedRequests.increment();
+      LOGGER.log(FINE, "Joining request in flight {0}", uri);
+      return shared.copy();
+    }
+    CompletableFuture<T> sent;
+    try {
+      sent = request.get();
+    } catch (RuntimeException exception) {
+      sent = CompletableFuture.failedFuture(exception);
+    }
+    sent.whenComplete((value, exception) -> {
+      if (memoize && exception == null && value != null) {
+        memoized.put(uri, created);
+      }
+      inFlight.remove(uri, created);
+      if (exception != null) {
+        created.completeExceptionally(exception);
+      } else {
+        created.complete(value);
+      }
+    });
+    return created.copy();
+  }
+
+  /**
+   * Sends the request, retrying throttled (429), unavailable (5xx) and failed transfers while the run-wide
+   * {@link RetryBudget} allows it. Completes with {@code null} once the request is given up; the outcome is
+   * recorded in {@code stats} so that gaps in an extraction are visible.
+   */
+  private <T> CompletableFuture<T> sendRequest(URI uri, ExtractionStats stats, BodyDecoder<T> decoder) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder()
+        .uri(uri)
+        .setHeader(HttpHeaders.AUTHORIZATION, "Basic " +
+            Base64.getEncoder().encodeToString((System.getenv("PEACH_TOKEN") + ":").getBytes()))
+        .setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+
+    if (responseCache != null) {
+      Optional<ResponseCache.Entry> cached = responseCache.lookup(uri);
+      if (cached.isPresent() && (responseCache.isOffline() || responseCache.isFresh(cached.get()))) {
+        return CompletableFuture.supplyAsync(() -> decodeCached(uri, cached.get(), decoder, stats), decodeExecutor);
+      }
+      if (responseCache.isOffline()) {
+        statistics(uri, stats).recordError();
+        stats.incrementFailedPages();
+        LOGGER.log(WARNING, "Offline mode, no cached response for {0}", uri);
+        return CompletableFuture.completedFuture(null);
+      }
+      cached.flatMap(ResponseCache.Entry::getETag).ifPresent(etag -> builder.setHeader(HttpHeaders.IF_NONE_MATCH, etag));
+      cached.flatMap(ResponseCache.Entry::getLastModified)
+          .ifPresent(lastModified -> builder.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified));
+    }
+
+    return doHttpRequest(builder.build(), decoder, 1, stats);
+  }
+
+  /**
+   * Sends one attempt and decodes its body while holding the limiter permit, so that the limiter counts the whole
+   * exchange in flight. The latency given to the limiter and the statistics runs until the response headers are
+   * received; the body transfer is timed as decoding. A body whose transfer fails is retried like a failed request.
+   */
+  private <T> CompletableFuture<T> doHttpRequest(HttpRequest request, BodyDecoder<T> decoder, int attempt,
+    ExtractionStats stats) {
+    return limiter.acquire()
+        .thenCompose(ignored -> {
+          long start = System.nanoTime();
+          // Until the headers are received, or the request failed without them
+          AtomicLong latency = new AtomicLong();
+          return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+              .whenComplete((response, exception) -> latency.set(System.nanoTime() - start))
+              .thenApplyAsync(response -> receive(request, response, decoder, stats), decodeExecutor)
+              .whenComplete((exchange, exception) -> {
+                limiter.release(request.uri().getPath(), latency.get(),
+                  isOverloaded(exchange == null ? null : exchange.response, exception));
+                statistics(request.uri(), stats).recordResponse(latency.get());
+              });
+        })
+        .handle((exchange, exception) -> {
+          HttpResponse<InputStream> response = exchange == null ? null : exchange.response;
+          if (exception == null && isSuccess(response)) {
+            return CompletableFuture.completedFuture(exchange.decoded);
+          }
+          Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+            ? exception.getCause()
+            : exception;
+          String failure = cause != null ? cause.getMessage() : ("HTTP " + response.statusCode());
+          if (isRetryable(response, cause) && attempt < MAX_ATTEMPTS && retryBudget.tryAcquire()) {
+            if (attempt == 1) {
+              stats.incrementRetriedPages();
+            }
+            statistics(request.uri(), stats).recordRetry();
+            Duration delay = retryDelay(response, attempt);
+            LOGGER.log(FINE, "Retrying {0} in {1} ms after {2}", new Object[] {request.uri(), delay.toMillis(), failure});
+            return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> doHttpRequest(request, decoder, attempt + 1, stats));
+          }
+          statistics(request.uri(), stats).recordError();
+          stats.incrementFailedPages();
+          LOGGER.log(WARNING, "Giving up on {0} after {1} attempt(s): {2}", new Object[] {request.uri(), attempt, failure});
+          return CompletableFuture.<T>completedFuture(null);
+        })
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Reads and decodes a successful response on {@link #decodeExecutor}, since reading the stream blocks until the
+   * transfer completes; discards the body of any other response. A failed transfer is rethrown to be retried, while
+   * a body that cannot be decoded is recorded as a failed page.
+   */
+  private <T> Exchange<T> receive(HttpRequest request, HttpResponse<InputStream> response, BodyDecoder<T> decoder,
+    ExtractionStats stats) {
+    if (!isSuccess(response)) {
+      discard(response);
+      return new Exchange<>(response, null);
+    }
+    EndpointStatistics statistics = statistics(request.uri(), stats);
+    long start = System.nanoTime();
+    try (InputStream body = openBody(request.uri(), response, statistics)) {
+      T decoded = decoder.decode(body);
+      statistics.recordPage(System.nanoTime() - start);
+      return new Exchange<>(response, decoded);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    } catch (RuntimeException exception) {
+      if (hasIOCause(exception)) {
+        // Gson wraps the failures of the reader it parses
+        throw exception;
+      }
+      statistics.recordError();
+      stats.incrementFailedPages();
+      LOGGER.log(WARNING, "Failed to decode {0}: {1}", new Object[] {request.uri(), exception.getMessage()});
+      return new Exchange<>(response, null);
+    }
+  }
+
+  private static boolean hasIOCause(Throwable exception) {
+    for (Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isSuccess(HttpResponse<?> response) {
+    return response.statusCode() / 100 == 2 || response.statusCode() == HTTP_NOT_MODIFIED;
+  }
+
+  private InputStream openBody(URI uri, HttpResponse<InputStream> response, EndpointStatistics statistics)
+    throws IOException {
+    if (responseCache != null && response.statusCode() == HTTP_NOT_MODIFIED) {
+      response.body().close();
+      return recorded(uri, responseCache.revalidated(uri));
+    }
+    String contentEncoding = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse("identity");
+    InputStream body = statistics.countDecoded(decompress(statistics.countReceived(response.body()), contentEncoding));
+    if (responseCache == null) {
+      return recorded(uri, body);
+    }
+    return recorded(uri, responseCache.store(uri, body, response.headers()));
+  }
+
+  private InputStream recorded(URI uri, InputStream body) throws IOException {
+    return fixtureRecorder == null ? body : fixtureRecorder.record(uri, body);
+  }
+
+  private static InputStream decompress(InputStream body, String contentEncoding) throws IOException {
+    switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(body);
+      case "deflate":
+        return new InflaterInputStream(body);
+      default:
+        return body;
+    }
+  }
+
+  private <T> T decodeCached(URI uri, ResponseCache.Entry entry, BodyDecoder<T> decoder, ExtractionStats stats) {
+    try (InputStream body = recorded(uri, responseCache.open(entry))) {
+      T decoded = decoder.decode(body);
+      statistics(uri, stats).recordCachedPage();
+      return decoded;
+    } catch (IOException | RuntimeException exception) {
+      statistics(uri, stats).recordError();
+      stats.incrementFailedPages();
+      LOGGER.log(WARNING, "Failed to decode cached {0}: {1}", new Object[] {uri, exception.getMessage()});
+      return null;
+    }
+  }
+
+  private EndpointStatistics statistics(URI uri, ExtractionStats stats) {
+    String project = Objects.requireNonNullElse(stats.getProjectKey(), "");
+    return endpointStatistics.computeIfAbsent(uri.getPath() + " " + project, key -> new EndpointStatistics(uri.getPath(), project));
+  }
+
+  private static void discard(HttpResponse<InputStream> response) {
+    try {
+      response.body().close();
+    } catch (IOException exception) {
+      LOGGER.log(FINE, exception.getMessage());
+    }
+  }
+
+  private <T> BodyDecoder<T> json(Class<T> type) {
+    return body -> gson.fromJson(new InputStreamReader(body, StandardCharsets.UTF_8), type);
+  }
+
+  private static boolean isOverloaded(HttpResponse<?> response, Throwable exception) {
+    return exception != null || response.statusCode() == 429 || response.statusCode() >= 500;
+  }
+
+  private static boolean isRetryable(HttpResponse<?> response, Throwable exception) {
+    return exception != null || response.statusCode() == 429 || (response.statusCode() >= 500 && response.statusCode() != 501);
+  }
+
+  /**
+   * Honors the server's Retry-After header (delay in seconds or HTTP date) when present, otherwise uses
+   * exponential backoff with full jitter.
+   */
+  private static Duration retryDelay(HttpResponse<?> response, int attempt) {
+    long jitterMillis = ThreadLocalRandom.current().nextLong(BASE_RETRY_DELAY.toMillis() + 1);
+    Optional<String> retryAfter = response == null ? Optional.empty() : response.headers().firstValue(HttpHeaders.RETRY_AFTER);
+    if (retryAfter.isPresent()) {
+      Duration serverDelay = parseRetryAfter(retryAfter.get().trim());
+      if (serverDelay != null) {
+        return min(serverDelay, MAX_RETRY_DELAY).plusMillis(jitterMillis);
+      }
+    }
+    long ceiling = Math.min(MAX_RETRY_DELAY.toMillis(), BASE_RETRY_DELAY.toMillis() << Math.min(attempt - 1, 16));
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  private static Duration parseRetryAfter(String value) {
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+    } catch (NumberFormatException notSeconds) {
+      try {
+        Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+        return untilDate.isNegative() ? Duration.ZERO : untilDate;
+      } catch (DateTimeParseException notDate) {
+        return null;
+      }
+    }
+  }
+
+  private static Duration min(Duration first, Duration second) {
+    return first.compareTo(second) <= 0 ? first : second;
+  }
+
+  private URI createURI(String host, String path, String query) {
+    if (query.isEmpty()) {
+      return URI.create(host + path);
+    }
+    return URI.create(host + path + "?" + query);
+  }
+
+  private static final class Exchange<T> {
+
+    private final HttpResponse<InputStream> response;
+    private final T decoded;
+
+    private Exchange(HttpResponse<InputStream> response, T decoded) {
+      this.response = response;
+      this.decoded = decoded;
+    }
+  }
+
+  @FunctionalInterface
+  interface BodyDecoder<T> {
+    T decode(InputStream body) throws IOException;
+  }
+}
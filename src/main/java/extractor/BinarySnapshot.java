@@ -0,0 +1,354 @@
+package extractor;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import model.Component;
+import model.Issue;
+import model.ProjectAnalysisQuality;
+import model.ProjectAnalysisResult;
+import model.TextRange;
+
+/**
+ * Binary encoding of a {@link ProjectAnalysisQuality}, several times smaller and faster to load than its JSON form,
+ * read back by {@link SnapshotReader}.
+ * <p>
+ * The issues, files and file revisions of the base and target results are packed as fixed-width records whose strings
+ * are indexes into a dictionary shared by the whole snapshot; everything else is kept as a JSON header. Issues are
+ * grouped and indexed by component. Layout, all integers big-endian:
+ * <pre>
+ * int magic, int version
+ * int header length, header bytes (UTF-8 JSON)
+ * int string count n, int[n + 1] offsets into the string bytes, string bytes (UTF-8)
+ * int label count (at most 255), one dictionary index per label
+ * base result tables, then target result tables, each:
+ *   int file count (-1 for none), 36-byte file records
+ *   int revision count (-1 for none), 8-byte revision records
+ *   int issue count (-1 for none), 26-byte issue records
+ *   int wide text range count, 16-byte text ranges
+ *   int component count, 12-byte records: component, first issue, issue count
+ * footer: for the base then the target result, the offsets of its 5 tables (-1 when there is no such result), magic
+ * </pre>
+ * Severities, statuses and types are single-byte indexes into the labels. A missing string is index -1. Text ranges
+ * are stored as a start line, then line span and offsets as unsigned shorts; the rare ones that do not fit are stored
+ * in full after the issues, the issue record then holding their index instead of the start line.
+ */
+final class BinarySnapshot {
+
+  static final int MAGIC = 0x41515346; // "AQSF"
+  static final int VERSION = 3;
+
+  static final int ISSUE_RECORD_BYTES = 26;
+  static final int FILE_RECORD_BYTES = 36;
+  static final int REVISION_RECORD_BYTES = 8;
+  static final int TEXT_RANGE_RECORD_BYTES = 16;
+  static final int INDEX_RECORD_BYTES = 12;
+  static final int TABLES = 5;
+  static final int FOOTER_BYTES = (2 * TABLES + 1) * Integer.BYTES;
+
+  static final int MAX_LABELS = 255;
+  static final int HAS_TEXT_RANGE = 1;
+  static final int WIDE_TEXT_RANGE = 2;
+  static final int ELIGIBLE = 1;
+  static final long NO_DATE = Long.MIN_VALUE;
+  private static final int MAX_NARROW = 0xFFFF;
+
+  // Fields of ProjectAnalysisResult written as tables rather than in the header
+  private static final Set<String> TABLE_FIELDS = Set.of("issues", "components", "componentRevisions");
+  private static final Gson HEADER_GSON = new GsonBuilder()
+    .addSerializationExclusionStrategy(new ExclusionStrategy() {
+      @Override
+      public boolean shouldSkipField(FieldAttributes field) {
+        return field.getDeclaringClass() == ProjectAnalysisResult.class && TABLE_FIELDS.contains(field.getName());
+      }
+
+      @Override
+      public boolean shouldSkipClass(Class<?> clazz) {
+        return false;
+      }
+    })
+    .create();
+
+  private BinarySnapshot() {
+  }
+
+  static boolean isBinary(byte[] leadingBytes) {
+    return leadingBytes.length >= Integer.BYTES && ByteBuffer.wrap(leadingBytes).getInt() == MAGIC;
+  }
+
+  /**
+   * Reads the header of a snapshot only: its results come without their issues, files and revisions.
+   */
+  static ProjectAnalysisQuality readHeader(InputStream inputStream) throws IOException {
+    DataInputStream input = new DataInputStream(inputStream);
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Not a binary snapshot");
+    }
+    int version = input.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported binary snapshot version " + version);
+    }
+    byte[] header = input.readNBytes(input.readInt());
+    return HEADER_GSON.fromJson(new String(header, StandardCharsets.UTF_8), ProjectAnalysisQuality.class);
+  }
+
+  static void write(ProjectAnalysisQuality projectAnalysisQuality, OutputStream outputStream) throws IOException {
+    Dictionary dictionary = new Dictionary();
+    List<ProjectAnalysisResult> results = new ArrayList<>();
+    results.add(projectAnalysisQuality.getBaseComponentResult());
+    results.add(projectAnalysisQuality.getTargetComponentResult());
+    for (ProjectAnalysisResult result : results) {
+      if (result != null) {
+        dictionary.addAll(result);
+      }
+    }
+
+    DataOutputStream output = new DataOutputStream(outputStream);
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    writeBytes(output, HEADER_GSON.toJson(projectAnalysisQuality).getBytes(StandardCharsets.UTF_8));
+    dictionary.write(output);
+    int[] footer = new int[2 * TABLES];
+    Arrays.fill(footer, -1);
+    for (int i = 0; i < results.size(); i++) {
+      ProjectAnalysisResult result = results.get(i);
+      if (result != null) {
+        int table = i * TABLES;
+        footer[table++] = offset(output);
+        writeFiles(output, dictionary, result.getComponents());
+        footer[table++] = offset(output);
+        writeRevisions(output, dictionary, result.getComponentRevisions());
+        writeIssues(output, dictionary, result.getIssues(), footer, table);
+      }
+    }
+    for (int offset : footer) {
+      output.writeInt(offset);
+    }
+    output.writeInt(MAGIC);
+    output.flush();
+  }
+
+  private static int offset(DataOutputStream output) throws IOException {
+    // DataOutputStream.size() stops counting at Integer.MAX_VALUE, which a snapshot cannot exceed anyway to be mapped
+    if (output.size() == Integer.MAX_VALUE) {
+      throw new IOException("Snapshot larger than 2 GB");
+    }
+    return output.size();
+  }
+
+  /**
+   * Writes the issues grouped by component, then their wide text ranges and component index, recording the offsets of
+   * these 3 tables in the footer from {@code table} on.
+   */
+  private static void writeIssues(DataOutputStream output, Dictionary dictionary, List<Issue> issues, int[] footer,
+    int table) throws IOException {
+    footer[table++] = offset(output);
+    if (issues == null) {
+      output.writeInt(-1);
+      issues = List.of();
+    } else {
+      output.writeInt(issues.size());
+    }
+    // Issues of each component in order of first occurrence
+    Map<String, List<Issue>> issuesByComponent = new LinkedHashMap<>();
+    for (Issue issue : issues) {
+      issuesByComponent.computeIfAbsent(issue.getComponent(), ignored -> new ArrayList<>()).add(issue);
+    }
+    List<TextRange> wideTextRanges = new ArrayList<>();
+    for (List<Issue> componentIssues : issuesByComponent.values()) {
+      for (Issue issue : componentIssues) {
+        writeIssue(output, dictionary, issue, wideTextRanges);
+      }
+    }
+
+    footer[table++] = offset(output);
+    output.writeInt(wideTextRanges.size());
+    for (TextRange textRange : wideTextRanges) {
+      output.writeInt(textRange.getStartLine());
+      output.writeInt(textRange.getEndLine());
+      output.writeInt(textRange.getStartOffset());
+      output.writeInt(textRange.getEndOffset());
+    }
+
+    footer[table] = offset(output);
+    output.writeInt(issuesByComponent.size());
+    int first = 0;
+    for (Map.Entry<String, List<Issue>> component : issuesByComponent.entrySet()) {
+      output.writeInt(dictionary.indexOf(component.getKey()));
+      output.writeInt(first);
+      output.writeInt(component.getValue().size());
+      first += component.getValue().size();
+    }
+  }
+
+  private static void writeIssue(DataOutputStream output, Dictionary dictionary, Issue issue,
+    List<TextRange> wideTextRanges) throws IOException {
+    output.writeInt(dictionary.indexOf(issue.getKey()));
+    output.writeInt(dictionary.indexOf(issue.getRule()));
+    output.writeInt(dictionary.indexOf(issue.getComponent()));
+    output.writeByte(dictionary.labelOf(issue.getSeverity()));
+    output.writeByte(dictionary.labelOf(issue.getStatus()));
+    output.writeByte(dictionary.labelOf(issue.getType()));
+    TextRange textRange = issue.getTextRange();
+    if (textRange == null) {
+      output.writeByte(0);
+      output.writeInt(0);
+      output.writeShort(0);
+      output.writeShort(0);
+      output.writeShort(0);
+    } else if (isNarrow(textRange)) {
+      output.writeByte(HAS_TEXT_RANGE);
+      output.writeInt(textRange.getStartLine());
+      output.writeShort(textRange.getEndLine() - textRange.getStartLine());
+      output.writeShort(textRange.getStartOffset());
+      output.writeShort(textRange.getEndOffset());
+    } else {
+      output.writeByte(HAS_TEXT_RANGE | WIDE_TEXT_RANGE);
+      output.writeInt(wideTextRanges.size());
+      output.writeShort(0);
+      output.writeShort(0);
+      output.writeShort(0);
+      wideTextRanges.add(textRange);
+    }
+  }
+
+  private static boolean isNarrow(TextRange textRange) {
+    int lineSpan = textRange.getEndLine() - textRange.getStartLine();
+    return lineSpan >= 0 && lineSpan <= MAX_NARROW
+      && textRange.getStartOffset() >= 0 && textRange.getStartOffset() <= MAX_NARROW
+      && textRange.getEndOffset() >= 0 && textRange.getEndOffset() <= MAX_NARROW;
+  }
+
+  private static void writeFiles(DataOutputStream output, Dictionary dictionary, List<Component> files) throws IOException {
+    if (files == null) {
+      output.writeInt(-1);
+      return;
+    }
+    output.writeInt(files.size());
+    for (Component file : files) {
+      output.writeInt(dictionary.indexOf(file.getOrganization()));
+      output.writeInt(dictionary.indexOf(file.getKey()));
+      output.writeInt(dictionary.indexOf(file.getName()));
+      output.writeInt(dictionary.indexOf(file.getQualifier()));
+      output.writeInt(dictionary.indexOf(file.getLanguage()));
+      output.writeInt(dictionary.indexOf(file.getEligibilityStatus()));
+      output.writeLong(file.getAnalysisDate() == null ? NO_DATE : file.getAnalysisDate().getTime());
+      output.writeInt(file.isEligible() ? ELIGIBLE : 0);
+    }
+  }
+
+  private static void writeRevisions(DataOutputStream output, Dictionary dictionary, Map<String, String> revisions)
+    throws IOException {
+    if (revisions == null) {
+      output.writeInt(-1);
+      return;
+    }
+    output.writeInt(revisions.size());
+    for (Map.Entry<String, String> revision : revisions.entrySet()) {
+      output.writeInt(dictionary.indexOf(revision.getKey()));
+      output.writeInt(dictionary.indexOf(revision.getValue()));
+    }
+  }
+
+  private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Distinct strings of a snapshot in order of first occurrence, and the few of them used as labels.
+   */
+  private static class Dictionary {
+
+    private final Map<String, Integer> indexes = new LinkedHashMap<>();
+    private final Map<String, Integer> labels = new LinkedHashMap<>();
+
+    void addAll(ProjectAnalysisResult result) throws IOException {
+      if (result.getComponents() != null) {
+        for (Component file : result.getComponents()) {
+          add(file.getOrganization());
+          add(file.getKey());
+          add(file.getName());
+          add(file.getQualifier());
+          add(file.getLanguage());
+          add(file.getEligibilityStatus());
+        }
+      }
+      if (result.getComponentRevisions() != null) {
+        result.getComponentRevisions().forEach((file, revision) -> {
+          add(file);
+          add(revision);
+        });
+      }
+      if (result.getIssues() != null) {
+        for (Issue issue : result.getIssues()) {
+          add(issue.getKey());
+          add(issue.getRule());
+          add(issue.getComponent());
+          addLabel(issue.getSeverity());
+          addLabel(issue.getStatus());
+          addLabel(issue.getType());
+        }
+      }
+    }
+
+    private void add(String value) {
+      if (value != null) {
+        indexes.computeIfAbsent(value, ignored -> indexes.size());
+      }
+    }
+
+    private void addLabel(String value) throws IOException {
+      if (value == null || labels.containsKey(value)) {
+        return;
+      }
+      if (labels.size() == MAX_LABELS) {
+        throw new IOException("More than " + MAX_LABELS + " distinct severities, statuses and types");
+      }
+      add(value);
+      labels.put(value, labels.size());
+    }
+
+    int indexOf(String value) {
+      return value == null ? -1 : indexes.get(value);
+    }
+
+    int labelOf(String value) {
+      return value == null ? MAX_LABELS : labels.get(value);
+    }
+
+    void write(DataOutputStream output) throws IOException {
+      List<byte[]> encoded = new ArrayList<>(indexes.size());
+      output.writeInt(indexes.size());
+      int offset = 0;
+      output.writeInt(offset);
+      for (String value : indexes.keySet()) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        encoded.add(bytes);
+        offset += bytes.length;
+        output.writeInt(offset);
+      }
+      for (byte[] bytes : encoded) {
+        output.write(bytes);
+      }
+      output.writeInt(labels.size());
+      for (String label : labels.keySet()) {
+        output.writeInt(indexOf(label));
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package extractor;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import model.Component;
+
+/**
+ * Groups files into {@code /api/issues/search} batches expected to come back in about one full page each.
+ * <p>
+ * Quiet files are packed together until their estimated issues fill a page, files with a page or more of issues
+ * are queried alone, and every batch keeps its {@code components=} parameter within {@link #MAX_QUERY_LENGTH}.
+ */
+class ComponentBatcher {
+
+  static final int MAX_QUERY_LENGTH = 4_000;
+
+  // Assumed for files without any estimate, e.g. created since the previous run
+  private static final int DEFAULT_ISSUES_PER_FILE = 5;
+
+  private ComponentBatcher() {
+  }
+
+  /**
+   * @param estimatedIssues estimated number of issues by component key
+   * @return URL-encoded, comma separated component keys of each batch
+   */
+  static List<String> batches(List<Component> components, Map<String, Integer> estimatedIssues, int targetIssues) {
+    List<String> batches = new ArrayList<>();
+    StringBuilder batch = new StringBuilder();
+    int batchIssues = 0;
+    for (Component component : components) {
+      String key = URLEncoder.encode(component.getKey(), StandardCharsets.UTF_8);
+      int issues = estimatedIssues.getOrDefault(component.getKey(), DEFAULT_ISSUES_PER_FILE);
+
+      boolean full = batchIssues + issues > targetIssues || batch.length() + 1 + key.length() > MAX_QUERY_LENGTH;
+      if (batch.length() > 0 && full) {
+        batches.add(batch.toString());
+        batch.setLength(0);
+        batchIssues = 0;
+      }
+      if (batch.length() > 0) {
+        batch.append(',');
+      }
+      batch.append(key);
+      batchIssues += issues;
+    }
+    if (batch.length() > 0) {
+      batches.add(batch.toString());
+    }
+    return batches;
+  }
+}
@@ -0,0 +1,47 @@
+package extractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import model.Issue;
+import model.ProjectAnalysisResult;
+
+/**
+ * Issues of a result by component, to go through them one component at a time.
+ */
+public interface ComponentIssueIndex {
+
+  /**
+   * Keys of the components with issues, in the order of their issues.
+   */
+  List<String> getComponentsWithIssues();
+
+  List<Issue> getIssuesOfComponent(String componentKey);
+
+  /**
+   * The index of a mapped binary snapshot, whose issues are decoded by component; otherwise the issues of the result
+   * grouped by component.
+   */
+  static ComponentIssueIndex of(ProjectAnalysisResult result) {
+    if (result.getIssues() instanceof ComponentIssueIndex) {
+      return (ComponentIssueIndex) result.getIssues();
+    }
+    Map<String, List<Issue>> issuesByComponent = new LinkedHashMap<>();
+    for (Issue issue : result.getIssues()) {
+      issuesByComponent.computeIfAbsent(issue.getComponent(), ignored -> new ArrayList<>()).add(issue);
+    }
+    return new ComponentIssueIndex() {
+      @Override
+      public List<String> getComponentsWithIssues() {
+        return new ArrayList<>(issuesByComponent.keySet());
+      }
+
+      @Override
+      public List<Issue> getIssuesOfComponent(String componentKey) {
+        return issuesByComponent.getOrDefault(componentKey, Collections.emptyList());
+      }
+    };
+  }
+}
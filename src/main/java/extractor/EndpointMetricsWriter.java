@@ -0,0 +1,135 @@
+package extractor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes the {@link EndpointStatistics} of a run as a JSON snapshot and in the Prometheus text exposition format.
+ */
+public class EndpointMetricsWriter {
+
+  public static final String JSON_FILE = "metrics.json";
+  public static final String PROMETHEUS_FILE = "metrics.prom";
+
+  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+  private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+  private EndpointMetricsWriter() {
+  }
+
+  public static void write(Collection<EndpointStatistics> statistics, Path folder) throws IOException {
+    List<EndpointStatistics> sorted = new ArrayList<>(statistics);
+    sorted.sort(Comparator.comparing(EndpointStatistics::getProject).thenComparing(EndpointStatistics::getEndpoint));
+    Files.createDirectories(folder);
+    writeJson(sorted, folder.resolve(JSON_FILE));
+    writePrometheus(sorted, folder.resolve(PROMETHEUS_FILE));
+  }
+
+  private static void writeJson(List<EndpointStatistics> statistics, Path path) throws IOException {
+    List<Map<String, Object>> entries = new ArrayList<>();
+    for (EndpointStatistics endpoint : statistics) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("endpoint", endpoint.getEndpoint());
+      entry.put("project", endpoint.getProject());
+      entry.put("requests", endpoint.getRequests());
+      entry.put("pages", endpoint.getPages());
+      entry.put("cachedPages", endpoint.getCachedPages());
+      entry.put("retries", endpoint.getRetries());
+      entry.put("errors", endpoint.getErrors());
+      entry.put("bytesReceived", endpoint.getBytesReceived());
+      entry.put("bytesDecoded", endpoint.getBytesDecoded());
+      entry.put("latencyMillis", percentiles(endpoint.getLatency()));
+      entry.put("decodingMillis", percentiles(endpoint.getDecoding()));
+      entries.add(entry);
+    }
+    try (Writer writer = Files.newBufferedWriter(path)) {
+      GSON.toJson(entries, writer);
+    }
+  }
+
+  private static Map<String, Double> percentiles(LatencyHistogram histogram) {
+    Map<String, Double> percentiles = new LinkedHashMap<>();
+    for (double quantile : QUANTILES) {
+      percentiles.put("p" + Math.round(quantile * 100), histogram.getPercentileMillis(quantile));
+    }
+    return percentiles;
+  }
+
+  private static void writePrometheus(List<EndpointStatistics> statistics, Path path) throws IOException {
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+      counter(writer, statistics, "extractor_requests_total", "HTTP requests sent, retries included",
+        EndpointStatistics::getRequests);
+      counter(writer, statistics, "extractor_pages_total", "Responses decoded from the server",
+        EndpointStatistics::getPages);
+      counter(writer, statistics, "extractor_cached_pages_total", "Responses decoded from the response cache",
+        EndpointStatistics::getCachedPages);
+      counter(writer, statistics, "extractor_retries_total", "Requests retried", EndpointStatistics::getRetries);
+      counter(writer, statistics, "extractor_errors_total", "Requests given up or responses that failed to decode",
+        EndpointStatistics::getErrors);
+      counter(writer, statistics, "extractor_received_bytes_total", "Response bytes received on the wire",
+        EndpointStatistics::getBytesReceived);
+      counter(writer, statistics, "extractor_decoded_bytes_total", "Response bytes once decompressed",
+        EndpointStatistics::getBytesDecoded);
+      histogram(writer, statistics, "extractor_response_latency_seconds", "Time until response headers are received",
+        EndpointStatistics::getLatency);
+      histogram(writer, statistics, "extractor_decoding_seconds", "Time to transfer and parse response bodies",
+        EndpointStatistics::getDecoding);
+    }
+  }
+
+  private static void counter(PrintWriter writer, List<EndpointStatistics> statistics, String name, String help,
+    ToDoubleFunction<EndpointStatistics> value) {
+    writer.println("# HELP " + name + " " + help);
+    writer.println("# TYPE " + name + " counter");
+    for (EndpointStatistics endpoint : statistics) {
+      writer.println(name + labels(endpoint, null) + " " + format(value.applyAsDouble(endpoint)));
+    }
+  }
+
+  private static void histogram(PrintWriter writer, List<EndpointStatistics> statistics, String name, String help,
+    Function<EndpointStatistics, LatencyHistogram> histogramOf) {
+    writer.println("# HELP " + name + " " + help);
+    writer.println("# TYPE " + name + " histogram");
+    for (EndpointStatistics endpoint : statistics) {
+      LatencyHistogram histogram = histogramOf.apply(endpoint);
+      long[] counts = histogram.getBucketCounts();
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        cumulative += counts[i];
+        String bound = i < LatencyHistogram.BUCKET_BOUNDS_MILLIS.length
+          ? format(LatencyHistogram.BUCKET_BOUNDS_MILLIS[i] / 1000.0)
+          : "+Inf";
+        writer.println(name + "_bucket" + labels(endpoint, bound) + " " + cumulative);
+      }
+      writer.println(name + "_sum" + labels(endpoint, null) + " " + format(histogram.getSumSeconds()));
+      writer.println(name + "_count" + labels(endpoint, null) + " " + histogram.getCount());
+    }
+  }
+
+  private static String labels(EndpointStatistics endpoint, String bucketBound) {
+    return "{endpoint=\"" + escape(endpoint.getEndpoint()) + "\",project=\"" + escape(endpoint.getProject()) + "\""
+      + (bucketBound == null ? "" : ",le=\"" + bucketBound + "\"") + "}";
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static String format(double value) {
+    return value == Math.rint(value) ? Long.toString((long) value) : String.format(Locale.ROOT, "%.6f", value);
+  }
+}
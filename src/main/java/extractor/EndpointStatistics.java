@@ -0,0 +1,157 @@
+package extractor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one API endpoint for one project: requests sent, response latency (until headers are received),
+ * decoding time (body transfer and parsing), pages obtained from the server or the response cache, retries, errors,
+ * bytes received on the wire and bytes obtained once decompressed.
+ */
+public class EndpointStatistics {
+
+  private final String endpoint;
+  private final String project;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder pages = new LongAdder();
+  private final LongAdder cachedPages = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+  private final LongAdder bytesDecoded = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LatencyHistogram decoding = new LatencyHistogram();
+
+  public EndpointStatistics(String endpoint, String project) {
+    this.endpoint = endpoint;
+    this.project = project;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Project the requests were sent for, empty for requests outside of any project.
+   */
+  public String getProject() {
+    return project;
+  }
+
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  public long getPages() {
+    return pages.sum();
+  }
+
+  public long getCachedPages() {
+    return cachedPages.sum();
+  }
+
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  public LatencyHistogram getDecoding() {
+    return decoding;
+  }
+
+  void recordResponse(long latencyNanos) {
+    requests.increment();
+    latency.record(latencyNanos);
+  }
+
+  void recordPage(long decodingNanos) {
+    pages.increment();
+    decoding.record(decodingNanos);
+  }
+
+  void recordCachedPage() {
+    cachedPages.increment();
+  }
+
+  void recordRetry() {
+    retries.increment();
+  }
+
+  void recordError() {
+    errors.increment();
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived.sum();
+  }
+
+  public long getBytesDecoded() {
+    return bytesDecoded.sum();
+  }
+
+  /**
+   * Bytes that compression kept off the wire.
+   */
+  public long getBytesSaved() {
+    return getBytesDecoded() - getBytesReceived();
+  }
+
+  InputStream countReceived(InputStream body) {
+    return new CountingInputStream(body, bytesReceived);
+  }
+
+  InputStream countDecoded(InputStream body) {
+    return new CountingInputStream(body, bytesDecoded);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s [%s]: %d requests, %d pages, p95 %.0f ms, %d KB received, %d KB decoded, %d KB saved",
+      endpoint, project, getRequests(), getPages(), latency.getPercentileMillis(0.95),
+      getBytesReceived() / 1024, getBytesDecoded() / 1024, getBytesSaved() / 1024);
+  }
+
+  private static class CountingInputStream extends FilterInputStream {
+
+    private final LongAdder counter;
+
+    CountingInputStream(InputStream in, LongAdder counter) {
+      super(in);
+      this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = super.read();
+      if (read >= 0) {
+        counter.increment();
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        counter.add(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      counter.add(skipped);
+      return skipped;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package extractor;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.logging.Logger;
+import model.Issue;
+
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Append-only journals of extractions in progress, one file per project key.
+ * <p>
+ * Every unit of work that completes without a failed request (a component batch, or a slice of a project-wide
+ * search) is appended with its issues, one JSON line per unit. When the extraction of a project is restarted against
+ * the same analysis, completed units are served from the journal instead of being requested again. A journal is
+ * deleted once the snapshot of its project is written.
+ */
+public class ExtractionJournal {
+
+  private static final Logger LOGGER = Logger.getLogger(ExtractionJournal.class.getName());
+  private static final Gson GSON = new Gson();
+
+  private static final String SUFFIX = ".journal";
+
+  private final Path folder;
+
+  public ExtractionJournal(String folder) {
+    this.folder = Paths.get(folder);
+  }
+
+  /**
+   * Opens the journal of a project, resuming it if it was started against the same analysis, otherwise starting over.
+   *
+   * @param analysisDate date of the analysis being extracted, {@code null} when unknown: the journal is then never resumed
+   */
+  ProjectJournal open(String projectKey, String analysisDate) throws IOException {
+    Files.createDirectories(folder);
+    Path path = path(projectKey);
+    Map<String, List<Issue>> completed = analysisDate == null ? new HashMap<>() : read(path, analysisDate);
+    if (!completed.isEmpty()) {
+      LOGGER.log(INFO, "[{0}] Resuming extraction, {1} units already completed", new Object[] {projectKey, completed.size()});
+    }
+
+    // Rewrite the journal with its valid entries only, so that appends never follow a truncated line
+    Path temporary = Files.createTempFile(folder, path.getFileName().toString(), ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        writeLine(writer, JournalEntry.header(analysisDate));
+        for (Map.Entry<String, List<Issue>> unit : completed.entrySet()) {
+          writeLine(writer, JournalEntry.unit(unit.getKey(), unit.getValue()));
+        }
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    return new ProjectJournal(completed, Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND));
+  }
+
+  /**
+   * Deletes the journal of a project whose snapshot is written.
+   */
+  public void complete(String projectKey) throws IOException {
+    Files.deleteIfExists(path(projectKey));
+  }
+
+  private static Map<String, List<Issue>> read(Path path, String analysisDate) {
+    Map<String, List<Issue>> completed = new LinkedHashMap<>();
+    if (!Files.exists(path)) {
+      return completed;
+    }
+    // Strings repeated by the issues of the journal, pooled while it is read
+    Gson gson = PooledTypeAdapterFactory.gson(new StringPool());
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      JournalEntry header = gson.fromJson(reader.readLine(), JournalEntry.class);
+      if (header == null || !analysisDate.equals(header.analysisDate)) {
+        LOGGER.log(INFO, "Discarding journal {0} of another analysis", path);
+        return completed;
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        JournalEntry entry = gson.fromJson(line, JournalEntry.class);
+        if (entry != null && entry.unit != null && entry.issues != null) {
+          completed.put(entry.unit, entry.issues);
+        }
+      }
+    } catch (IOException | JsonParseException exception) {
+      // The last line is truncated when the JVM died while appending it
+      LOGGER.log(WARNING, "Journal {0} ends with an unreadable entry, ignoring it: {1}",
+        new Object[] {path, exception.getMessage()});
+    }
+    return completed;
+  }
+
+  private static void writeLine(BufferedWriter writer, JournalEntry entry) throws IOException {
+    writer.write(GSON.toJson(entry));
+    writer.newLine();
+  }
+
+  private Path path(String projectKey) {
+    return folder.resolve(projectKey.replace(":", "_") + SUFFIX);
+  }
+
+  /**
+   * Journal of one extraction. Without a journal configured, {@link #disabled()} completes nothing and records nothing.
+   */
+  static class ProjectJournal implements Closeable {
+
+    private final Map<String, List<Issue>> completed;
+    private final BufferedWriter writer;
+
+    private ProjectJournal(Map<String, List<Issue>> completed, BufferedWriter writer) {
+      this.completed = completed;
+      this.writer = writer;
+    }
+
+    static ProjectJournal disabled() {
+      return new ProjectJournal(Map.of(), null);
+    }
+
+    /**
+     * Issues of a unit completed by a previous attempt.
+     */
+    Optional<List<Issue>> completed(String unit) {
+      return Optional.ofNullable(completed.get(unit)).map(ArrayList::new);
+    }
+
+    /**
+     * Appends a completed unit and flushes it, so that it survives the JVM.
+     */
+    synchronized void record(String unit, List<Issue> issues) {
+      if (writer == null) {
+        return;
+      }
+      try {
+        writeLine(writer, JournalEntry.unit(unit, issues));
+        writer.flush();
+      } catch (IOException exception) {
+        LOGGER.log(WARNING, "Failed to journal a completed unit: {0}", exception.getMessage());
+      }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+  }
+
+  private static class JournalEntry {
+
+    private String analysisDate;
+    private String unit;
+    private List<Issue> issues;
+
+    private static JournalEntry header(String analysisDate) {
+      JournalEntry entry = new JournalEntry();
+      entry.analysisDate = Objects.requireNonNullElse(analysisDate, "");
+      return entry;
+    }
+
+    private static JournalEntry unit(String unit, List<Issue> issues) {
+      JournalEntry entry = new JournalEntry();
+      entry.unit = unit;
+      entry.issues = issues;
+      return entry;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package extractor;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Filters of an {@code /api/issues/search} query. Slices of a query are derived by narrowing it on rules,
+ * type or creation date.
+ */
+public class IssueQuery {
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ")
+    .withZone(ZoneOffset.UTC);
+
+  private final String componentKeys;
+  private final List<String> rules;
+  private final String type;
+  private final Instant createdAfter;
+  private final Instant createdBefore;
+
+  private IssueQuery(String componentKeys, List<String> rules, String type, Instant createdAfter, Instant createdBefore) {
+    this.componentKeys = componentKeys;
+    this.rules = rules;
+    this.type = type;
+    this.createdAfter = createdAfter;
+    this.createdBefore = createdBefore;
+  }
+
+  /**
+   * @param componentKeys comma separated, URL-encoded project or file keys
+   */
+  public static IssueQuery forComponents(String componentKeys) {
+    return new IssueQuery(componentKeys, null, null, null, null);
+  }
+
+  public IssueQuery withRules(List<String> rules) {
+    return new IssueQuery(componentKeys, rules, type, createdAfter, createdBefore);
+  }
+
+  public IssueQuery withType(String type) {
+    return new IssueQuery(componentKeys, rules, type, createdAfter, createdBefore);
+  }
+
+  /**
+   * Restricts to issues created in {@code [createdAfter, createdBefore)}, a {@code null} bound leaving that end open.
+   */
+  public IssueQuery withCreationRange(Instant createdAfter, Instant createdBefore) {
+    return new IssueQuery(componentKeys, rules, type, createdAfter, createdBefore);
+  }
+
+  public List<String> getRules() {
+    return rules;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public Instant getCreatedAfter() {
+    return createdAfter;
+  }
+
+  public Instant getCreatedBefore() {
+    return createdBefore;
+  }
+
+  String render(int page, int pageSize, List<String> facets) {
+    StringBuilder query = new StringBuilder()
+      .append("ps=").append(pageSize)
+      .append("&components=").append(componentKeys)
+      .append("&p=").append(page)
+      .append("&resolved=false")
+      .append("&branch=").append(AsyncApiConnector.DEFAULT_ANALYSIS_BRANCH);
+    if (rules != null) {
+      query.append("&rules=").append(rules.stream().map(IssueQuery::encode).collect(Collectors.joining(",")));
+    }
+    if (type != null) {
+      query.append("&types=").append(type);
+    }
+    if (createdAfter != null) {
+      query.append("&createdAfter=").append(encode(DATE_FORMAT.format(createdAfter)));
+    }
+    if (createdBefore != null) {
+      query.append("&createdBefore=").append(encode(DATE_FORMAT.format(createdBefore)));
+    }
+    if (!facets.isEmpty()) {
+      query.append("&facets=").append(String.join(",", facets));
+    }
+    return query.toString();
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return render(1, 0, List.of());
+  }
+}
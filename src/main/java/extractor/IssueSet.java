@@ -0,0 +1,77 @@
+package extractor;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Issue;
+
+/**
+ * Set of issues probed by their {@link Issue#getFingerprint() fingerprint}, in an open-addressing table of longs.
+ * <p>
+ * A probe compares fingerprints only, then confirms a match with {@link Issue#equals(Object)}. Distinct issues sharing
+ * a fingerprint are kept in a small overflow list.
+ */
+class IssueSet {
+
+  private static final float LOAD_FACTOR = 0.75f;
+
+  // 0 marks a free slot: fingerprints are never 0
+  private final long[] fingerprints;
+  private final Issue[] issues;
+  private final int mask;
+  private final List<Issue> collisions = new ArrayList<>();
+  private int size;
+
+  IssueSet(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 16) - 1) << 1;
+    fingerprints = new long[capacity];
+    issues = new Issue[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * @return {@code true} if the issue was not already in the set
+   */
+  boolean add(Issue issue) {
+    if (size >= fingerprints.length * LOAD_FACTOR) {
+      throw new IllegalStateException("Issue set full, " + size + " issues");
+    }
+    long fingerprint = issue.getFingerprint();
+    int slot = slot(fingerprint);
+    if (fingerprints[slot] == 0) {
+      fingerprints[slot] = fingerprint;
+      issues[slot] = issue;
+      size++;
+      return true;
+    }
+    if (issues[slot].equals(issue) || collisions.contains(issue)) {
+      return false;
+    }
+    collisions.add(issue);
+    size++;
+    return true;
+  }
+
+  boolean contains(Issue issue) {
+    long fingerprint = issue.getFingerprint();
+    int slot = slot(fingerprint);
+    if (fingerprints[slot] == 0) {
+      return false;
+    }
+    return issues[slot].equals(issue) || (!collisions.isEmpty() && collisions.contains(issue));
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Slot holding this fingerprint, or the free slot where it belongs.
+   */
+  private int slot(long fingerprint) {
+    int slot = (int) fingerprint & mask;
+    while (fingerprints[slot] != 0 && fingerprints[slot] != fingerprint) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
@@ -0,0 +1,88 @@
+package extractor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations over fixed buckets, from which percentiles are estimated by interpolating
+ * within the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+  // Upper bounds of the buckets, in milliseconds; a last, unbounded bucket follows
+  static final long[] BUCKET_BOUNDS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000};
+  private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MILLIS.length];
+
+  static {
+    for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+      BUCKET_BOUNDS_NANOS[i] = BUCKET_BOUNDS_MILLIS[i] * 1_000_000;
+    }
+  }
+
+  private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sumNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    // Compared in nanoseconds: a duration just over a bound must not fall in that bound's bucket
+    int bucket = 0;
+    while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+      bucket++;
+    }
+    buckets[bucket].increment();
+    count.increment();
+    sumNanos.add(nanos);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public double getSumSeconds() {
+    return sumNanos.sum() / 1e9;
+  }
+
+  /**
+   * Number of durations in each bucket, the last one being unbounded.
+   */
+  public long[] getBucketCounts() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  /**
+   * @param quantile between 0 and 1, e.g. 0.95
+   * @return estimated duration in milliseconds, 0 when nothing was recorded
+   */
+  public double getPercentileMillis(double quantile) {
+    long[] counts = getBucketCounts();
+    long total = 0;
+    for (long bucketCount : counts) {
+      total += bucketCount;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    double rank = quantile * total;
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0 && seen + counts[i] >= rank) {
+        double lower = i == 0 ? 0 : BUCKET_BOUNDS_MILLIS[i - 1];
+        if (i == BUCKET_BOUNDS_MILLIS.length) {
+          return lower;
+        }
+        return lower + (BUCKET_BOUNDS_MILLIS[i] - lower) * (rank - seen) / counts[i];
+      }
+      seen += counts[i];
+    }
+    return BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1];
+  }
+}
@@ -0,0 +1,81 @@
+package extractor;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import model.Component;
+import model.Issue;
+import model.Rule;
+
+/**
+ * Deserializes {@link Issue}, {@link Component} and {@link Rule} as Gson would, then replaces their repeated strings
+ * with the ones of a {@link StringPool}.
+ */
+class PooledTypeAdapterFactory implements TypeAdapterFactory {
+
+  private final StringPool stringPool;
+
+  private PooledTypeAdapterFactory(StringPool stringPool) {
+    this.stringPool = stringPool;
+  }
+
+  /**
+   * A Gson instance deserializing model objects with strings of the given pool, kept as long as the instance is.
+   */
+  static Gson gson(StringPool stringPool) {
+    return new GsonBuilder().registerTypeAdapterFactory(new PooledTypeAdapterFactory(stringPool)).create();
+  }
+
+  @Override
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    Class<? super T> rawType = type.getRawType();
+    if (rawType != Issue.class && rawType != Component.class && rawType != Rule.class) {
+      return null;
+    }
+    TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+    return new TypeAdapter<>() {
+      @Override
+      public void write(JsonWriter out, T value) throws IOException {
+        delegate.write(out, value);
+      }
+
+      @Override
+      public T read(JsonReader in) throws IOException {
+        T value = delegate.read(in);
+        poolStrings(value);
+        return value;
+      }
+    };
+  }
+
+  private void poolStrings(Object value) {
+    if (value instanceof Issue issue) {
+      pool(issue, stringPool);
+    } else if (value instanceof Component component) {
+      pool(component, stringPool);
+    } else if (value instanceof Rule rule) {
+      rule.setKey(stringPool.canonical(rule.getKey()));
+    }
+  }
+
+  static void pool(Issue issue, StringPool stringPool) {
+    issue.setRule(stringPool.canonical(issue.getRule()));
+    issue.setSeverity(stringPool.canonical(issue.getSeverity()));
+    issue.setStatus(stringPool.canonical(issue.getStatus()));
+    issue.setType(stringPool.canonical(issue.getType()));
+    issue.setComponent(stringPool.canonical(issue.getComponent()));
+  }
+
+  static void pool(Component component, StringPool stringPool) {
+    component.setOrganization(stringPool.canonical(component.getOrganization()));
+    component.setKey(stringPool.canonical(component.getKey()));
+    component.setQualifier(stringPool.canonical(component.getQualifier()));
+    component.setLanguage(stringPool.canonical(component.getLanguage()));
+    component.setEligibilityStatus(stringPool.canonical(component.getEligibilityStatus()));
+  }
+}
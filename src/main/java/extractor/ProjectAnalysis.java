@@ -1,117 +1,484 @@
 package extractor;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import model.Component;
+import model.ExtractionStats;
 import model.Issue;
+import model.IssueCounts;
+import model.PluginsInstalled;
 import model.ProjectAnalysisDifferences;
 import model.ProjectAnalysisQuality;
 import model.ProjectAnalysisResult;
+import model.ProjectBranch;
 import model.QualityProfile;
 
 import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
 
 public class ProjectAnalysis {
 
   private static final Logger LOGGER = Logger.getLogger(ProjectAnalysis.class.getName());
 
+  private static final String FILE_QUALIFIERS = "FIL,UTS";
+  private static final String VIOLATIONS_METRIC = "violations";
+  private static final String LAST_COMMIT_DATE_METRIC = "last_commit_date";
+
+  /**
+   * How issues are retrieved: with project-wide queries sliced to fit the search window, or by batches of files.
+   */
+  public enum IssueExtractionMode {
+    PROJECT,
+    COMPONENT_BATCHES
+  }
+
   private final ApiConnector apiConnector;
+  private IssueExtractionMode issueExtractionMode = IssueExtractionMode.PROJECT;
+  private SnapshotStore previousSnapshots;
+  private RuleRepository ruleRepository;
+  private boolean deltaExtraction;
+  private ExtractionJournal journal;
 
   public ProjectAnalysis(ApiConnector apiConnector, MetricsConnector metricsConnector) {
     this.apiConnector = apiConnector;
+    this.ruleRepository = new RuleRepository(apiConnector.async());
+  }
+
+  public ProjectAnalysis withIssueExtractionMode(IssueExtractionMode issueExtractionMode) {
+    this.issueExtractionMode = issueExtractionMode;
+    return this;
+  }
+
+  /**
+   * Snapshots of the previous run, used to plan this one.
+   */
+  public ProjectAnalysis withPreviousSnapshots(SnapshotStore previousSnapshots) {
+    this.previousSnapshots = previousSnapshots;
+    return this;
+  }
+
+  /**
+   * In delta mode, issues are only retrieved for files that are new or changed since the previous snapshot; the
+   * issues of other files are carried over from it. Issues that changed without their file changing (resolved by
+   * hand, rule activated) are only picked up by a full extraction.
+   */
+  public ProjectAnalysis withDeltaExtraction(boolean deltaExtraction) {
+    this.deltaExtraction = deltaExtraction;
+    return this;
+  }
+
+  /**
+   * Journal of completed batches and slices, to resume an interrupted extraction where it stopped.
+   */
+  public ProjectAnalysis withJournal(ExtractionJournal journal) {
+    this.journal = journal;
+    return this;
+  }
+
+  /**
+   * Repository of quality profile rules, to share them with other analyses of the run.
+   */
+  public ProjectAnalysis withRuleRepository(RuleRepository ruleRepository) {
+    this.ruleRepository = ruleRepository;
+    return this;
   }
 
   public ProjectAnalysisResult extractResult(String projectKey) {
-    // This does not fetch project/assembly level issues, 
-    // so the number might be less in contrast to peachy issues/ tab
-    int pageSize = 5;
+    return extractResultAsync(projectKey).join();
+  }
+
+  public CompletableFuture<ProjectAnalysisResult> extractResultAsync(String projectKey) {
     long start = System.currentTimeMillis();
+    AsyncApiConnector asyncApiConnector = apiConnector.async();
+    ExtractionStats stats = new ExtractionStats(projectKey);
 
-    List<Issue> issues = new ArrayList<>();
-    List<Component> mainComponents = apiConnector.getAllComponents(projectKey, "FIL");
-    for (int i = 0; i < mainComponents.size(); i += pageSize) {
-      var componentKeys = mainComponents.subList(i, Math.min(i + pageSize, mainComponents.size())).stream()
-        .map(Component::getKey).collect(Collectors.toList());
-      componentKeys.replaceAll(s -> URLEncoder.encode(s, StandardCharsets.UTF_8));
-      String componentQuery = String.join(",", componentKeys);
-      List<Issue> allComponentIssues = apiConnector.getAllComponentIssues(componentQuery);
-      issues.addAll(allComponentIssues);
+    CompletableFuture<Optional<ProjectBranch>> branch = asyncApiConnector.getAnalyzedBranch(projectKey, stats);
+    CompletableFuture<List<Component>> fileComponents = asyncApiConnector.getAllComponents(projectKey, FILE_QUALIFIERS, stats);
+    CompletableFuture<Map<String, String>> revisions = deltaExtraction
+        ? asyncApiConnector.getComponentMeasures(projectKey, FILE_QUALIFIERS, List.of(LAST_COMMIT_DATE_METRIC), stats)
+          .thenApply(ProjectAnalysis::toRevisions)
+        : CompletableFuture.completedFuture(null);
+    Optional<ProjectAnalysisResult> previous = deltaExtraction
+        ? previousResult(projectKey).filter(r -> r.getComponentRevisions() != null)
+        : Optional.empty();
+    CompletableFuture<ExtractionJournal.ProjectJournal> projectJournal = journal == null
+        ? CompletableFuture.completedFuture(ExtractionJournal.ProjectJournal.disabled())
+        : branch.thenApply(b -> openJournal(projectKey, b));
+    CompletableFuture<List<Issue>> fileIssues;
+    if (previous.isPresent()) {
+      fileIssues = projectJournal.thenCompose(j -> fileComponents.thenCombine(revisions,
+          (c, r) -> extractChangedIssues(projectKey, previous.get(), c, r, j, stats)))
+        .thenCompose(Function.identity());
+    } else if (issueExtractionMode == IssueExtractionMode.PROJECT) {
+      fileIssues = branch.thenCompose(b -> projectJournal
+          .thenCompose(j -> asyncApiConnector.getAllProjectIssues(projectKey, b, j, stats)))
+        .thenCombine(fileComponents, ProjectAnalysis::onlyFileIssues);
+    } else {
+      fileIssues = projectJournal.thenCompose(j -> fileComponents.thenCompose(c -> estimateIssuesPerComponent(projectKey, stats)
+        .thenCompose(estimates -> extractComponentIssues(
+          ComponentBatcher.batches(c, estimates, AsyncApiConnector.PAGE_SIZE), j, stats))));
     }
+    CompletableFuture<String> serverVersion = asyncApiConnector.getServerVersion(stats);
+    CompletableFuture<Optional<PluginsInstalled>> pluginsInstalled = asyncApiConnector.getPluginsInstalled(stats);
+    CompletableFuture<Optional<List<QualityProfile>>> qualityProfiles = asyncApiConnector.getNavigationComponent(projectKey, stats)
+        .thenCompose(nc -> nc.isPresent()
+          ? extractRulesFromQualityProfiles(nc.get().getQualityProfiles(), stats).thenApply(Optional::of)
+          : CompletableFuture.completedFuture(Optional.empty()));
+    CompletableFuture<Map<String, Integer>> locPerLanguages = asyncApiConnector.getLocPerLanguages(projectKey, stats);
 
-    List<Component> testComponents = apiConnector.getAllComponents(projectKey, "UTS");
-    for (int i = 0; i < testComponents.size(); i += pageSize) {
-      String componentKeys = testComponents.subList(i, Math.min(i + pageSize, testComponents.size())).stream()
-        .map(Component::getKey)
-        .collect(Collectors.joining(","));
-      issues.addAll(apiConnector.getAllComponentIssues(componentKeys));
-    }
+    return CompletableFuture.allOf(fileIssues, serverVersion, pluginsInstalled, qualityProfiles, locPerLanguages, revisions,
+        branch)
+      .whenComplete((ignored, exception) -> projectJournal.thenAccept(ProjectAnalysis::closeJournal))
+      .thenCompose(ignored -> confirmAnalysis(projectKey, branch.join(), stats))
+      .thenApply(ignored -> {
+        List<Issue> issues = fileIssues.join();
 
-    ProjectAnalysisResult result = new ProjectAnalysisResult()
-        .setIssues(issues)
-        .setServerVersion(apiConnector.getServerVersion());
+        ProjectAnalysisResult result = new ProjectAnalysisResult()
+            .setIssues(issues)
+            .setServerVersion(serverVersion.join());
 
-    apiConnector.getPluginsInstalled()
-        .ifPresent(result::setPluginsInstalled);
-    apiConnector.getNavigationComponent(projectKey)
-        .ifPresent(nc -> result.setQualityProfiles(extractRulesFromQualityProfiles(nc.getQualityProfiles())));
+        pluginsInstalled.join().ifPresent(result::setPluginsInstalled);
+        qualityProfiles.join().ifPresent(result::setQualityProfiles);
+        branch.join().ifPresent(result::setBranch);
 
-    result.setLocPerLanguages(apiConnector.getLocPerLanguages(projectKey));
-    mainComponents.addAll(testComponents);
-    result.setComponents(mainComponents);
+        result.setLocPerLanguages(locPerLanguages.join());
+        List<Component> components = new ArrayList<>(fileComponents.join());
+        result.setComponents(components);
+        result.setExtractionStats(stats);
+        result.setComponentRevisions(revisions.join());
 
-    long elapsed = (System.currentTimeMillis() - start) / 1000;
-    LOGGER.log(INFO, "[{0}] Retrieved {1} mainComponents and {2} issues in {3} seconds",
-        new Object[] { projectKey, mainComponents.size(), issues.size(), elapsed });
+        stats.setDurationMillis(System.currentTimeMillis() - start);
+        long elapsed = stats.getDurationMillis() / 1000;
+        LOGGER.log(INFO, "[{0}] Retrieved {1} mainComponents and {2} issues in {3} seconds ({4} pages retried, {5} given up)",
+            new Object[] { projectKey, components.size(), issues.size(), elapsed, stats.getRetriedPages(), stats.getFailedPages() });
+
+        return result;
+      });
+  }
 
+  /**
+   * Checks, once the issues are fetched, that the recorded analysis is still the latest one: otherwise the issues may
+   * come from both analyses. A failed page is then counted, so that the next run does not take the snapshot as up to
+   * date.
+   */
+  private CompletableFuture<Void> confirmAnalysis(String projectKey, Optional<ProjectBranch> branch,
+    ExtractionStats stats) {
+    if (branch.isEmpty() || branch.get().getAnalysisDate() == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return apiConnector.async().getAnalyzedBranch(projectKey, stats).thenAccept(current -> {
+      if (current.isEmpty() || !sameAnalysis(branch.get(), current.get())) {
+        stats.incrementFailedPages();
+        LOGGER.log(WARNING, "[{0}] Analyzed again during the extraction, its issues may mix both analyses", projectKey);
+      }
+    });
+  }
+
+  /**
+   * Pre-flight check of a run: the projects analyzed again since their previous snapshot, or without one. A snapshot
+   * whose extraction gave up on some pages, or whose analysis changed while it was extracted, is extracted again.
+   * Costs one request per project, sent concurrently.
+   */
+  public List<Component> withNewAnalysis(List<Component> projects) {
+    List<CompletableFuture<Boolean>> changed = projects.stream()
+      .map(project -> hasNewAnalysis(project.getKey()))
+      .collect(Collectors.toList());
+    List<Component> result = new ArrayList<>();
+    for (int i = 0; i < projects.size(); i++) {
+      if (changed.get(i).join()) {
+        result.add(projects.get(i));
+      } else {
+        LOGGER.log(INFO, "[{0}] No new analysis since the previous snapshot, skipping", projects.get(i).getKey());
+      }
+    }
     return result;
   }
 
-  public static ProjectAnalysisDifferences processDifferences(ProjectAnalysisResult base,
-      ProjectAnalysisResult target) {
-    Set<Issue> baseIssues = new HashSet<>(base.getIssues());
-    Set<Issue> targetIssues = new HashSet<>(target.getIssues());
+  private CompletableFuture<Boolean> hasNewAnalysis(String projectKey) {
+    Optional<ProjectBranch> previous = previousSnapshots == null
+      ? Optional.empty()
+      : previousSnapshots.loadResultHeader(projectKey)
+        .filter(ProjectAnalysis::isComplete)
+        .map(ProjectAnalysisResult::getBranch);
+    if (previous.isEmpty() || previous.get().getAnalysisDate() == null) {
+      return CompletableFuture.completedFuture(true);
+    }
+    return apiConnector.async().getAnalyzedBranch(projectKey, new ExtractionStats(projectKey))
+      .thenApply(current -> current.isEmpty() || !sameAnalysis(previous.get(), current.get()));
+  }
+
+  private static boolean isComplete(ProjectAnalysisResult result) {
+    return result.getExtractionStats() != null && result.getExtractionStats().getFailedPages() == 0;
+  }
+
+  private static boolean sameAnalysis(ProjectBranch previous, ProjectBranch current) {
+    return previous.getAnalysisDate().equals(current.getAnalysisDate())
+      && Objects.equals(commitSha(previous), commitSha(current));
+  }
+
+  private static String commitSha(ProjectBranch branch) {
+    return branch.getCommit() == null ? null : branch.getCommit().getSha();
+  }
+
+  /**
+   * Project-wide queries also return project and directory level issues, which file batches never retrieved:
+   * keep results comparable with snapshots extracted by batches.
+   */
+  private static List<Issue> onlyFileIssues(List<Issue> issues, List<Component> fileComponents) {
+    Set<String> fileKeys = fileComponents.stream()
+      .map(Component::getKey)
+      .collect(Collectors.toSet());
+    return issues.stream()
+      .filter(issue -> fileKeys.contains(issue.getComponent()))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Issue counts of the previous snapshot when there is one, otherwise the {@code violations} measure of each file.
+   */
+  private CompletableFuture<Map<String, Integer>> estimateIssuesPerComponent(String projectKey, ExtractionStats stats) {
+    Optional<ProjectAnalysisResult> previous = previousResult(projectKey);
+    if (previous.isPresent()) {
+      return CompletableFuture.completedFuture(issuesPerComponent(previous.get()));
+    }
+    return apiConnector.async().getComponentMeasures(projectKey, FILE_QUALIFIERS, List.of(VIOLATIONS_METRIC), stats)
+      .thenApply(measures -> {
+        Map<String, Integer> estimates = new HashMap<>();
+        measures.forEach((key, values) -> {
+          String violations = values.get(VIOLATIONS_METRIC);
+          estimates.put(key, violations == null ? 0 : Integer.parseInt(violations));
+        });
+        return estimates;
+      });
+  }
 
-    List<Issue> missing = baseIssues.stream()
-        .filter(issue -> !targetIssues.contains(issue))
-        .collect(Collectors.toList());
+  private Optional<ProjectAnalysisResult> previousResult(String projectKey) {
+    return previousSnapshots == null
+      ? Optional.empty()
+      : previousSnapshots.loadResult(projectKey).filter(r -> r.getIssues() != null && r.getComponents() != null);
+  }
+
+  private static Map<String, Integer> issuesPerComponent(ProjectAnalysisResult result) {
+    Map<String, Integer> issues = new HashMap<>();
+    result.getComponents().forEach(c -> issues.put(c.getKey(), 0));
+    result.getIssues().forEach(i -> issues.merge(i.getComponent(), 1, Integer::sum));
+    return issues;
+  }
+
+  /**
+   * Last commit date of each file. Files without one are left out, so that they are always considered changed.
+   */
+  private static Map<String, String> toRevisions(Map<String, Map<String, String>> measures) {
+    Map<String, String> revisions = new HashMap<>();
+    measures.forEach((key, values) -> {
+      String lastCommitDate = values.get(LAST_COMMIT_DATE_METRIC);
+      if (lastCommitDate != null && !lastCommitDate.isEmpty()) {
+        revisions.put(key, lastCommitDate);
+      }
+    });
+    return revisions;
+  }
+
+  /**
+   * Carries over the previous issues of unchanged files and retrieves those of new and changed files. Files that
+   * disappeared since the previous snapshot lose their issues.
+   */
+  private CompletableFuture<List<Issue>> extractChangedIssues(String projectKey, ProjectAnalysisResult previous,
+    List<Component> fileComponents, Map<String, String> revisions, ExtractionJournal.ProjectJournal journal,
+    ExtractionStats stats) {
+    Map<String, Component> previousComponents = previous.getComponents().stream()
+      .collect(Collectors.toMap(Component::getKey, Function.identity(), (first, second) -> first));
+    List<Component> changed = new ArrayList<>();
+    Set<String> unchanged = new HashSet<>();
+    for (Component component : fileComponents) {
+      if (hasChanged(component, previousComponents.get(component.getKey()), previous.getComponentRevisions(), revisions)) {
+        changed.add(component);
+      } else {
+        unchanged.add(component.getKey());
+      }
+    }
+    List<Issue> issues = previous.getIssues().stream()
+      .filter(issue -> unchanged.contains(issue.getComponent()))
+      .collect(Collectors.toList());
+    LOGGER.log(INFO, "[{0}] {1} of {2} files changed since the previous snapshot, {3} issues carried over",
+      new Object[] {projectKey, changed.size(), fileComponents.size(), issues.size()});
+    if (changed.isEmpty()) {
+      return CompletableFuture.completedFuture(issues);
+    }
+
+    List<String> batches = ComponentBatcher.batches(changed, issuesPerComponent(previous), AsyncApiConnector.PAGE_SIZE);
+    return extractComponentIssues(batches, journal, stats).thenApply(changedIssues -> {
+      issues.addAll(changedIssues);
+      return issues;
+    });
+  }
 
-    List<Issue> added = target.getIssues().stream()
-        .filter(issue -> !baseIssues.contains(issue))
-        .collect(Collectors.toList());
+  /**
+   * A file is unchanged when it has the same known last commit date as in the previous snapshot. Snapshots written
+   * before unknown dates were left out record them as empty.
+   */
+  private static boolean hasChanged(Component current, Component previous, Map<String, String> previousRevisions,
+    Map<String, String> revisions) {
+    String revision = revisions.get(current.getKey());
+    if (previous == null || revision == null || revision.isEmpty()) {
+      return true;
+    }
+    return !revision.equals(previousRevisions.get(current.getKey()));
+  }
+
+  private CompletableFuture<List<Issue>> extractComponentIssues(List<String> batches,
+    ExtractionJournal.ProjectJournal journal, ExtractionStats stats) {
+    // This does not fetch project/assembly level issues,
+    // so the number might be less in contrast to peachy issues/ tab
+    List<CompletableFuture<List<Issue>>> results = batches.stream()
+      .map(componentQuery -> journal.completed(componentQuery)
+        .map(CompletableFuture::completedFuture)
+        .orElseGet(() -> extractBatchIssues(componentQuery, journal, stats)))
+      .collect(Collectors.toList());
+
+    return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+      .thenApply(ignored -> results.stream()
+        .flatMap(batch -> batch.join().stream())
+        .collect(Collectors.toList()));
+  }
+
+  private CompletableFuture<List<Issue>> extractBatchIssues(String componentQuery, ExtractionJournal.ProjectJournal journal,
+    ExtractionStats stats) {
+    ExtractionStats batchStats = stats.child();
+    return apiConnector.async().getAllComponentIssues(componentQuery, batchStats).thenApply(issues -> {
+      if (batchStats.getFailedPages() == 0) {
+        journal.record(componentQuery, issues);
+      }
+      return issues;
+    });
+  }
 
-    List<Component> targetComponents = target.getComponents();
+  private ExtractionJournal.ProjectJournal openJournal(String projectKey, Optional<ProjectBranch> branch) {
+    try {
+      return journal.open(projectKey, branch.map(ProjectBranch::getAnalysisDate).orElse(null));
+    } catch (IOException exception) {
+      LOGGER.log(WARNING, "[{0}] Cannot open extraction journal, continuing without it: {1}",
+        new Object[] {projectKey, exception.getMessage()});
+      return ExtractionJournal.ProjectJournal.disabled();
+    }
+  }
 
+  private static void closeJournal(ExtractionJournal.ProjectJournal projectJournal) {
+    try {
+      projectJournal.close();
+    } catch (IOException exception) {
+      LOGGER.log(WARNING, "Failed to close extraction journal: {0}", exception.getMessage());
+    }
+  }
+
+  /**
+   * Compares the issues of both results one component at a time, through their {@link ComponentIssueIndex}: only the
+   * issues of one component are decoded at once from a mapped snapshot, each of them once. Issues match within
+   * components of the same comparable key, and are listed by component. Base issues are only counted.
+   */
+  public static ProjectAnalysisDifferences processDifferences(ProjectAnalysisResult base,
+      ProjectAnalysisResult target) {
+    ComponentIssueIndex baseIndex = ComponentIssueIndex.of(base);
+    ComponentIssueIndex targetIndex = ComponentIssueIndex.of(target);
+    Map<String, List<String>> baseComponentsWithIssues = byComparableKey(baseIndex);
+    Map<String, List<String>> targetComponentsWithIssues = byComparableKey(targetIndex);
+
+    Set<String> targetComponents = target.getComponents().stream()
+        .map(Component::getComparableKey)
+        .collect(Collectors.toSet());
     Set<String> intersection = base.getComponents().stream()
-        .distinct()
-        .filter(targetComponents::contains)
         .map(Component::getComparableKey)
+        .filter(targetComponents::contains)
         .collect(Collectors.toSet());
 
-    List<Issue> missingInBoth = missing.stream()
-        .filter(i -> intersection.contains(i.getComparableComponent()))
-        .collect(Collectors.toList());
+    List<Issue> missing = new ArrayList<>();
+    List<Issue> added = new ArrayList<>();
+    List<Issue> missingInBoth = new ArrayList<>();
+    List<Issue> addedInBoth = new ArrayList<>();
+    IssueCounts baseIssueCounts = new IssueCounts();
+    IssueCounts baseIssueCountsInBoth = new IssueCounts();
 
-    List<Issue> addedInBoth = added.stream()
-        .filter(i -> intersection.contains(i.getComparableComponent()))
-        .collect(Collectors.toList());
+    Set<String> comparableKeys = new LinkedHashSet<>(baseComponentsWithIssues.keySet());
+    comparableKeys.addAll(targetComponentsWithIssues.keySet());
+    for (String comparableKey : comparableKeys) {
+      List<Issue> baseIssues = issuesOf(baseIndex, baseComponentsWithIssues.get(comparableKey));
+      List<Issue> targetIssues = issuesOf(targetIndex, targetComponentsWithIssues.get(comparableKey));
+      boolean inBoth = intersection.contains(comparableKey);
 
-    List<Issue> baseIssuesInBoth = baseIssues.stream()
-        .filter(i -> intersection.contains(i.getComparableComponent()))
-        .collect(Collectors.toList());
+      // Distinct base issues, in order
+      IssueSet baseIssueSet = new IssueSet(baseIssues.size());
+      List<Issue> distinctBaseIssues = new ArrayList<>(baseIssues.size());
+      for (Issue issue : baseIssues) {
+        baseIssueCounts.add(issue);
+        if (baseIssueSet.add(issue)) {
+          distinctBaseIssues.add(issue);
+          if (inBoth) {
+            baseIssueCountsInBoth.add(issue);
+          }
+        }
+      }
+      IssueSet targetIssueSet = new IssueSet(targetIssues.size());
+      targetIssues.forEach(targetIssueSet::add);
+
+      for (Issue issue : distinctBaseIssues) {
+        if (!targetIssueSet.contains(issue)) {
+          missing.add(issue);
+          if (inBoth) {
+            missingInBoth.add(issue);
+          }
+        }
+      }
+      for (Issue issue : targetIssues) {
+        if (!baseIssueSet.contains(issue)) {
+          added.add(issue);
+          if (inBoth) {
+            addedInBoth.add(issue);
+          }
+        }
+      }
+    }
 
     return new ProjectAnalysisDifferences()
         .setAdded(added)
         .setMissing(missing)
         .setAddedInCommonComponents(addedInBoth)
         .setMissingInCommonComponents(missingInBoth)
-        .setBaseIssues(base.getIssues())
-        .setBaseIssuesInCommonComponents(baseIssuesInBoth);
+        .setBaseIssueCounts(baseIssueCounts)
+        .setBaseIssueCountsInCommonComponents(baseIssueCountsInBoth);
+  }
+
+  private static Map<String, List<String>> byComparableKey(ComponentIssueIndex index) {
+    Map<String, List<String>> components = new LinkedHashMap<>();
+    for (String componentKey : index.getComponentsWithIssues()) {
+      String comparableKey = componentKey.substring(componentKey.indexOf(':'));
+      components.computeIfAbsent(comparableKey, ignored -> new ArrayList<>(1)).add(componentKey);
+    }
+    return components;
+  }
+
+  /**
+   * Issues of the given components, copied so that each is decoded once.
+   */
+  private static List<Issue> issuesOf(ComponentIssueIndex index, List<String> componentKeys) {
+    if (componentKeys == null) {
+      return List.of();
+    }
+    List<Issue> issues = new ArrayList<>();
+    componentKeys.forEach(componentKey -> issues.addAll(index.getIssuesOfComponent(componentKey)));
+    return issues;
   }
 
   public ProjectAnalysisQuality toAnalysisQuality(Component component) {
@@ -132,8 +499,12 @@ public class ProjectAnalysis {
         pq.getBaseComponentResult(), pq.getTargetComponentResult()));
   }
 
-  private List<QualityProfile> extractRulesFromQualityProfiles(List<QualityProfile> qualityProfiles) {
-    qualityProfiles.forEach(qp -> qp.setRules(apiConnector.getRulesFromQualityProfile(qp)));
-    return qualityProfiles;
+  private CompletableFuture<List<QualityProfile>> extractRulesFromQualityProfiles(List<QualityProfile> qualityProfiles,
+    ExtractionStats stats) {
+    List<CompletableFuture<Void>> rules = qualityProfiles.stream()
+      .map(qp -> ruleRepository.getRules(qp, stats).thenAccept(qp::setRules))
+      .collect(Collectors.toList());
+    return CompletableFuture.allOf(rules.toArray(CompletableFuture[]::new))
+      .thenApply(ignored -> qualityProfiles);
   }
 }
@@ -0,0 +1,233 @@
+package extractor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import model.ComponentIssues;
+import model.ExtractionStats;
+import model.Facet;
+import model.FacetValue;
+import model.Issue;
+import model.ProjectBranch;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Retrieves every open issue of a query, however many there are.
+ * <p>
+ * {@code /api/issues/search} only serves the first {@link #MAX_SEARCH_WINDOW} results of a query. The first page of
+ * each query is requested with rule and type facets; when the total exceeds the window the query is split into
+ * slices, by groups of rules, then by type, then by halving its creation date range, until each slice fits. The date
+ * range is halved between 2000 and the day after the analysis being extracted, so that the slices of an analysis are
+ * the same from one run to the next and are found in the journal, the response cache and recorded fixtures. The first
+ * and last date slices are open-ended: no issue is left out of the range. Slices that do not add up to the total of
+ * their query are counted as a failed page.
+ * The number of requests is then driven by the number of issues rather than by the number of files.
+ * Slices that complete are recorded in the extraction journal.
+ */
+class ProjectIssueSearch {
+
+  private static final Logger LOGGER = Logger.getLogger(ProjectIssueSearch.class.getName());
+
+  static final int MAX_SEARCH_WINDOW = 10_000;
+
+  private static final int MAX_RULES_PER_SLICE = 50;
+  private static final String RULES_FACET = "rules";
+  private static final String TYPES_FACET = "types";
+  private static final List<String> FACETS = List.of(RULES_FACET, TYPES_FACET);
+  private static final Instant EARLIEST_CREATION_DATE = Instant.parse("2000-01-01T00:00:00Z");
+  private static final DateTimeFormatter ANALYSIS_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+
+  private final AsyncApiConnector apiConnector;
+  private final ExtractionJournal.ProjectJournal journal;
+  private final ExtractionStats stats;
+  private final Instant latestCreationDate;
+
+  /**
+   * @param branch analyzed branch of the project, whose analysis date bounds the creation date of its issues
+   */
+  ProjectIssueSearch(AsyncApiConnector apiConnector, Optional<ProjectBranch> branch,
+    ExtractionJournal.ProjectJournal journal, ExtractionStats stats) {
+    this.apiConnector = apiConnector;
+    this.journal = journal;
+    this.stats = stats;
+    this.latestCreationDate = latestCreationDate(branch);
+  }
+
+  /**
+   * Whole days, the day after the analysis. Without an analysis date, the day after today: slices then change from
+   * one day to the next, but such an extraction is not journaled anyway.
+   */
+  private static Instant latestCreationDate(Optional<ProjectBranch> branch) {
+    Instant analysisDate = Instant.now();
+    Optional<String> date = branch.map(ProjectBranch::getAnalysisDate);
+    if (date.isPresent()) {
+      try {
+        analysisDate = ANALYSIS_DATE_FORMAT.parse(date.get(), Instant::from);
+      } catch (DateTimeParseException exception) {
+        LOGGER.log(WARNING, "Unexpected analysis date {0}, slicing issues up to today", date.get());
+      }
+    }
+    return analysisDate.truncatedTo(ChronoUnit.DAYS).plus(Duration.ofDays(1));
+  }
+
+  CompletableFuture<List<Issue>> search(IssueQuery query) {
+    return searchSlice(query).thenApply(slice -> slice.issues);
+  }
+
+  private CompletableFuture<Slice> searchSlice(IssueQuery query) {
+    Optional<List<Issue>> journaled = journal.completed(query.toString());
+    if (journaled.isPresent()) {
+      return CompletableFuture.completedFuture(new Slice(journaled.get(), Slice.UNKNOWN_TOTAL));
+    }
+    return apiConnector.searchIssues(query, 1, FACETS, stats).thenCompose(firstPage -> {
+      if (firstPage.isEmpty() || firstPage.get().getIssues() == null) {
+        return CompletableFuture.completedFuture(new Slice(new ArrayList<>(), 0));
+      }
+      int total = firstPage.get().getTotal();
+      if (total <= MAX_SEARCH_WINDOW) {
+        ExtractionStats sliceStats = stats.child();
+        return apiConnector.getRemainingIssues(query, firstPage.get(), sliceStats).thenApply(issues -> {
+          if (sliceStats.getFailedPages() == 0) {
+            journal.record(query.toString(), issues);
+          }
+          return new Slice(issues, total);
+        });
+      }
+
+      Optional<List<IssueQuery>> slices = split(query, firstPage.get());
+      if (slices.isEmpty()) {
+        LOGGER.log(WARNING, "Cannot split {0} any further, only {1} of its {2} issues are retrieved",
+          new Object[] {query, MAX_SEARCH_WINDOW, total});
+        return apiConnector.getRemainingIssues(query, firstPage.get(), stats)
+          .thenApply(issues -> new Slice(issues, total));
+      }
+
+      LOGGER.log(FINE, "Splitting {0} ({1} issues) into {2} slices", new Object[] {query, total, slices.get().size()});
+      List<CompletableFuture<Slice>> results = slices.get().stream()
+        .map(this::searchSlice)
+        .collect(Collectors.toList());
+      return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+        .thenApply(ignored -> {
+          List<Slice> sliceResults = results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+          checkTotals(query, total, sliceResults);
+          return new Slice(sliceResults.stream()
+            .flatMap(slice -> slice.issues.stream())
+            .collect(Collectors.toList()), total);
+        });
+    });
+  }
+
+  /**
+   * Counts a failed page when the slices of a query miss some of its issues. Slices served from the journal were
+   * complete when recorded, but their total is not known.
+   */
+  private void checkTotals(IssueQuery query, int total, List<Slice> slices) {
+    if (slices.stream().anyMatch(slice -> slice.total == Slice.UNKNOWN_TOTAL)) {
+      return;
+    }
+    long sliceTotal = slices.stream().mapToLong(slice -> slice.total).sum();
+    if (sliceTotal < total) {
+      stats.incrementFailedPages();
+      LOGGER.log(WARNING, "The slices of {0} hold {1} of its {2} issues",
+        new Object[] {query, sliceTotal, total});
+    }
+  }
+
+  private Optional<List<IssueQuery>> split(IssueQuery query, ComponentIssues firstPage) {
+    int total = firstPage.getTotal();
+    if (query.getRules() == null) {
+      Optional<List<FacetValue>> rules = completeFacet(firstPage, RULES_FACET, total);
+      if (rules.isPresent() && rules.get().size() > 1) {
+        return Optional.of(splitByRules(query, rules.get()));
+      }
+    }
+    if (query.getType() == null) {
+      Optional<List<FacetValue>> types = completeFacet(firstPage, TYPES_FACET, total);
+      if (types.isPresent() && types.get().size() > 1) {
+        return Optional.of(types.get().stream()
+          .map(type -> query.withType(type.getVal()))
+          .collect(Collectors.toList()));
+      }
+    }
+    return splitByCreationDate(query);
+  }
+
+  /**
+   * Facet values with issues, if they account for every issue of the query: facets may be truncated to their top values.
+   */
+  private static Optional<List<FacetValue>> completeFacet(ComponentIssues page, String property, int total) {
+    return page.getFacet(property)
+      .map(Facet::getValues)
+      .map(values -> values.stream().filter(v -> v.getCount() > 0).collect(Collectors.toList()))
+      .filter(values -> values.stream().mapToLong(FacetValue::getCount).sum() == total);
+  }
+
+  /**
+   * Packs rules, largest first, into groups that fit in the search window. A rule larger than the window gets its
+   * own group, to be split further by type or date.
+   */
+  private static List<IssueQuery> splitByRules(IssueQuery query, List<FacetValue> rules) {
+    List<IssueQuery> slices = new ArrayList<>();
+    List<String> group = new ArrayList<>();
+    int groupCount = 0;
+    List<FacetValue> largestFirst = new ArrayList<>(rules);
+    largestFirst.sort(Comparator.comparingInt(FacetValue::getCount).reversed());
+    for (FacetValue rule : largestFirst) {
+      if (!group.isEmpty() && (groupCount + rule.getCount() > MAX_SEARCH_WINDOW || group.size() == MAX_RULES_PER_SLICE)) {
+        slices.add(query.withRules(group));
+        group = new ArrayList<>();
+        groupCount = 0;
+      }
+      group.add(rule.getVal());
+      groupCount += rule.getCount();
+    }
+    if (!group.isEmpty()) {
+      slices.add(query.withRules(group));
+    }
+    return slices;
+  }
+
+  /**
+   * Halves the creation date range of the query, taken as [2000, the day after the analysis) when it is open. The
+   * halves keep the open ends of the query, so that issues created before 2000 or after the analysis are not dropped.
+   */
+  private Optional<List<IssueQuery>> splitByCreationDate(IssueQuery query) {
+    Instant after = query.getCreatedAfter() != null ? query.getCreatedAfter() : EARLIEST_CREATION_DATE;
+    Instant before = query.getCreatedBefore() != null ? query.getCreatedBefore() : latestCreationDate;
+    long seconds = Duration.between(after, before).getSeconds();
+    if (seconds < 2) {
+      return Optional.empty();
+    }
+    Instant middle = after.plusSeconds(seconds / 2);
+    return Optional.of(List.of(
+      query.withCreationRange(query.getCreatedAfter(), middle),
+      query.withCreationRange(middle, query.getCreatedBefore())));
+  }
+
+  /**
+   * Issues of a query, and the total announced by its first page.
+   */
+  private static class Slice {
+
+    private static final int UNKNOWN_TOTAL = -1;
+
+    private final List<Issue> issues;
+    private final int total;
+
+    private Slice(List<Issue> issues, int total) {
+      this.issues = issues;
+      this.total = total;
+    }
+  }
+}
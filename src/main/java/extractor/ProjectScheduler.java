@@ -0,0 +1,155 @@
+package extractor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import model.Component;
+import model.ExtractionStats;
+import model.ProjectAnalysisResult;
+
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Orders projects largest first, so that the biggest ones do not start last and run alone at the end of a run.
+ * <p>
+ * The cost of a project is its extraction time in the previous run when its snapshot records one, otherwise its
+ * number of lines of code, converted to time with the rate observed on previous snapshots that record both. Only the
+ * headers of previous snapshots are read, and lines of code are only requested for projects without one.
+ */
+public class ProjectScheduler {
+
+  private static final Logger LOGGER = Logger.getLogger(ProjectScheduler.class.getName());
+
+  // Used when no previous run tells how long a line of code takes to extract
+  private static final double DEFAULT_MILLIS_PER_LINE = 0.05;
+
+  private final AsyncApiConnector apiConnector;
+  private final SnapshotStore previousSnapshots;
+  private final int workers;
+
+  /**
+   * @param workers number of projects extracted at once, {@link Integer#MAX_VALUE} when unbounded
+   */
+  public ProjectScheduler(AsyncApiConnector apiConnector, SnapshotStore previousSnapshots, int workers) {
+    this.apiConnector = apiConnector;
+    this.previousSnapshots = previousSnapshots;
+    this.workers = workers;
+  }
+
+  public Schedule plan(List<Component> projects) {
+    Map<String, Long> previousDurations = new HashMap<>();
+    Map<String, CompletableFuture<Long>> linesOfCode = new HashMap<>();
+    long previousMillis = 0;
+    long previousLines = 0;
+    for (Component project : projects) {
+      String key = project.getKey();
+      Optional<ProjectAnalysisResult> previous = previousResult(key);
+      Optional<Long> duration = previous.flatMap(ProjectScheduler::duration);
+      if (duration.isPresent()) {
+        previousDurations.put(key, duration.get());
+        long lines = lines(previous.get().getLocPerLanguages());
+        if (lines > 0) {
+          previousMillis += duration.get();
+          previousLines += lines;
+        }
+      } else {
+        linesOfCode.put(key, apiConnector.getLocPerLanguages(key, new ExtractionStats(key))
+          .thenApply(ProjectScheduler::lines)
+          .exceptionally(exception -> {
+            LOGGER.log(WARNING, "[{0}] Cannot get lines of code, scheduling it last: {1}",
+              new Object[] {key, exception.getMessage()});
+            return 0L;
+          }));
+      }
+    }
+    CompletableFuture.allOf(linesOfCode.values().toArray(CompletableFuture[]::new)).join();
+
+    double millisPerLine = previousLines == 0 ? DEFAULT_MILLIS_PER_LINE : (double) previousMillis / previousLines;
+    Map<String, Long> costs = new HashMap<>();
+    for (Component project : projects) {
+      String key = project.getKey();
+      Long previousDuration = previousDurations.get(key);
+      costs.put(key, previousDuration != null ? previousDuration : Math.round(linesOfCode.get(key).join() * millisPerLine));
+    }
+
+    List<Component> largestFirst = new ArrayList<>(projects);
+    largestFirst.sort(Comparator.comparingLong((Component project) -> costs.get(project.getKey())).reversed());
+    Schedule schedule = new Schedule(largestFirst, costs, predictMakespan(largestFirst, costs));
+    LOGGER.log(INFO, "Scheduled {0} projects largest first on {1} workers, predicted makespan {2} s",
+      new Object[] {projects.size(), workers == Integer.MAX_VALUE ? "unbounded" : workers,
+        schedule.getPredictedMakespanMillis() / 1000});
+    return schedule;
+  }
+
+  private Optional<ProjectAnalysisResult> previousResult(String projectKey) {
+    return previousSnapshots == null ? Optional.empty() : previousSnapshots.loadResultHeader(projectKey);
+  }
+
+  private static Optional<Long> duration(ProjectAnalysisResult result) {
+    return Optional.ofNullable(result.getExtractionStats())
+      .map(ExtractionStats::getDurationMillis)
+      .filter(duration -> duration > 0);
+  }
+
+  private static long lines(Map<String, Integer> locPerLanguages) {
+    return locPerLanguages == null ? 0 : locPerLanguages.values().stream().mapToLong(Integer::longValue).sum();
+  }
+
+  /**
+   * Makespan of the projects dispatched in order, each to the first worker to become free.
+   */
+  private long predictMakespan(List<Component> projects, Map<String, Long> costs) {
+    PriorityQueue<Long> workerLoads = new PriorityQueue<>();
+    long makespan = 0;
+    for (Component project : projects) {
+      long start = workerLoads.size() < workers ? 0 : workerLoads.poll();
+      long end = start + costs.get(project.getKey());
+      workerLoads.add(end);
+      makespan = Math.max(makespan, end);
+    }
+    return makespan;
+  }
+
+  public static class Schedule {
+
+    private final List<Component> projects;
+    private final Map<String, Long> estimatedMillis;
+    private final long predictedMakespanMillis;
+
+    private Schedule(List<Component> projects, Map<String, Long> estimatedMillis, long predictedMakespanMillis) {
+      this.projects = projects;
+      this.estimatedMillis = estimatedMillis;
+      this.predictedMakespanMillis = predictedMakespanMillis;
+    }
+
+    /**
+     * Projects in dispatch order, largest first.
+     */
+    public List<Component> getProjects() {
+      return projects;
+    }
+
+    public long getEstimatedMillis(String projectKey) {
+      return estimatedMillis.getOrDefault(projectKey, 0L);
+    }
+
+    public long getPredictedMakespanMillis() {
+      return predictedMakespanMillis;
+    }
+
+    @Override
+    public String toString() {
+      return projects.stream()
+        .map(project -> project.getKey() + " (" + getEstimatedMillis(project.getKey()) / 1000 + " s)")
+        .collect(Collectors.joining(", "));
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Persistent cache of API responses, keyed by request URI.
+ * <p>
+ * Each entry is a body file plus a properties file holding its validators (ETag, Last-Modified). Entries younger
+ * than the time-to-live of their endpoint are served without any request; older ones are revalidated with a
+ * conditional request. Only endpoints that do not depend on the latest analysis have a time-to-live: issues, files,
+ * measures, quality profiles and branches are always revalidated, so that a snapshot never pairs the date of a new
+ * analysis with the issues of an older one. The cache is bounded in size and evicts the least recently used entries. In offline mode
+ * every lookup is answered from disk, whatever the age of the entry, and misses are never sent to the server.
+ */
+public class ResponseCache {
+
+  private static final Logger LOGGER = Logger.getLogger(ResponseCache.class.getName());
+
+  public static final long DEFAULT_MAX_BYTES = 2L * 1024 * 1024 * 1024;
+
+  private static final String BODY_SUFFIX = ".body";
+  private static final String META_SUFFIX = ".properties";
+
+  private static final String ETAG = "etag";
+  private static final String LAST_MODIFIED = "lastModified";
+  private static final String STORED_AT = "storedAt";
+  private static final String REQUEST_URI = "uri";
+
+  // Always revalidated: the response may change with each analysis
+  private static final Duration DEFAULT_TTL = Duration.ZERO;
+  private static final Map<String, Duration> TTL_BY_ENDPOINT = Map.of(
+    "/api/server/version", Duration.ofDays(1),
+    "/api/plugins/installed", Duration.ofDays(1),
+    "/api/rules/search", Duration.ofDays(1),
+    "/api/components/search", Duration.ofHours(6));
+
+  private final Path directory;
+  private final long maxBytes;
+  private final boolean offline;
+  // Entry key to body size, in access order
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  public ResponseCache(Path directory, long maxBytes, boolean offline) throws IOException {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.offline = offline;
+    Files.createDirectories(directory);
+    loadIndex();
+  }
+
+  /**
+   * Cache configured by the {@code EXTRACTOR_CACHE_DIR}, {@code EXTRACTOR_CACHE_MAX_MB} and {@code EXTRACTOR_OFFLINE}
+   * environment variables, if a directory is set.
+   */
+  public static Optional<ResponseCache> fromEnvironment() throws IOException {
+    String cacheDirectory = System.getenv("EXTRACTOR_CACHE_DIR");
+    if (cacheDirectory == null || cacheDirectory.isBlank()) {
+      return Optional.empty();
+    }
+    String maxMegabytes = System.getenv("EXTRACTOR_CACHE_MAX_MB");
+    long maxBytes = maxMegabytes == null ? DEFAULT_MAX_BYTES : Long.parseLong(maxMegabytes) * 1024 * 1024;
+    boolean offline = Boolean.parseBoolean(System.getenv("EXTRACTOR_OFFLINE"));
+    return Optional.of(new ResponseCache(Paths.get(cacheDirectory), maxBytes, offline));
+  }
+
+  public boolean isOffline() {
+    return offline;
+  }
+
+  public Optional<Entry> lookup(URI uri) {
+    Path meta = metaPath(key(uri));
+    if (!Files.exists(meta) || !Files.exists(bodyPath(key(uri)))) {
+      return Optional.empty();
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (IOException exception) {
+      LOGGER.log(WARNING, "Ignoring unreadable cache entry for {0}: {1}", new Object[] {uri, exception.getMessage()});
+      return Optional.empty();
+    }
+    return Optional.of(new Entry(uri, properties));
+  }
+
+  public boolean isFresh(Entry entry) {
+    return System.currentTimeMillis() - entry.storedAt < ttl(entry.uri).toMillis();
+  }
+
+  /**
+   * Opens a cached body and marks the entry as recently used.
+   */
+  public InputStream open(Entry entry) throws IOException {
+    String key = key(entry.uri);
+    synchronized (this) {
+      entries.get(key);
+    }
+    Files.setLastModifiedTime(metaPath(key), FileTime.fromMillis(System.currentTimeMillis()));
+    return Files.newInputStream(bodyPath(key));
+  }
+
+  /**
+   * Records that the server confirmed the cached body is still current (HTTP 304) and opens it.
+   */
+  public InputStream revalidated(URI uri) throws IOException {
+    Entry entry = lookup(uri).orElseThrow(() -> new IOException("Revalidated entry vanished from cache: " + uri));
+    entry.properties.setProperty(STORED_AT, Long.toString(System.currentTimeMillis()));
+    writeMeta(key(uri), entry.properties);
+    return open(entry);
+  }
+
+  /**
+   * Copies a fresh response body into the cache and opens the stored copy.
+   */
+  public InputStream store(URI uri, InputStream body, HttpHeaders headers) throws IOException {
+    String key = key(uri);
+    Path temporary = Files.createTempFile(directory, key, ".tmp");
+    long size;
+    try (body) {
+      size = Files.copy(body, temporary, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(temporary, bodyPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+
+    Properties properties = new Properties();
+    properties.setProperty(REQUEST_URI, uri.toString());
+    properties.setProperty(STORED_AT, Long.toString(System.currentTimeMillis()));
+    headers.firstValue("ETag").ifPresent(etag -> properties.setProperty(ETAG, etag));
+    headers.firstValue("Last-Modified").ifPresent(lastModified -> properties.setProperty(LAST_MODIFIED, lastModified));
+    writeMeta(key, properties);
+
+    synchronized (this) {
+      Long previous = entries.put(key, size);
+      totalBytes += size - (previous == null ? 0 : previous);
+      evict(key);
+    }
+    return Files.newInputStream(bodyPath(key));
+  }
+
+  private static Duration ttl(URI uri) {
+    return TTL_BY_ENDPOINT.getOrDefault(uri.getPath(), DEFAULT_TTL);
+  }
+
+  private void writeMeta(String key, Properties properties) throws IOException {
+    Path temporary = Files.createTempFile(directory, key, ".tmp");
+    try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      properties.store(writer, null);
+    }
+    Files.move(temporary, metaPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void evict(String keep) {
+    Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      if (entry.getKey().equals(keep)) {
+        continue;
+      }
+      try {
+        Files.deleteIfExists(metaPath(entry.getKey()));
+        Files.deleteIfExists(bodyPath(entry.getKey()));
+      } catch (IOException exception) {
+        LOGGER.log(WARNING, "Failed to evict cache entry: " + exception.getMessage());
+      }
+      totalBytes -= entry.getValue();
+      eldest.remove();
+      LOGGER.log(FINE, "Evicted cache entry {0}", entry.getKey());
+    }
+  }
+
+  private void loadIndex() throws IOException {
+    List<Path> metas;
+    try (Stream<Path> files = Files.list(directory)) {
+      metas = files
+        .filter(path -> path.getFileName().toString().endsWith(META_SUFFIX))
+        .sorted(Comparator.comparing(ResponseCache::lastModified))
+        .collect(Collectors.toList());
+    }
+    for (Path meta : metas) {
+      String fileName = meta.getFileName().toString();
+      String key = fileName.substring(0, fileName.length() - META_SUFFIX.length());
+      Path body = bodyPath(key);
+      if (Files.exists(body)) {
+        long size = Files.size(body);
+        entries.put(key, size);
+        totalBytes += size;
+      }
+    }
+    LOGGER.log(INFO, "Response cache {0} holds {1} entries ({2} MB){3}",
+      new Object[] {directory, entries.size(), totalBytes / (1024 * 1024), offline ? ", offline mode" : ""});
+  }
+
+  private static FileTime lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException exception) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private Path bodyPath(String key) {
+    return directory.resolve(key + BODY_SUFFIX);
+  }
+
+  private Path metaPath(String key) {
+    return directory.resolve(key + META_SUFFIX);
+  }
+
+  private static String key(URI uri) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder();
+      for (byte b : digest) {
+        key.append(String.format("%02x", b));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  public static class Entry {
+
+    private final URI uri;
+    private final Properties properties;
+    private final long storedAt;
+
+    private Entry(URI uri, Properties properties) {
+      this.uri = uri;
+      this.properties = properties;
+      this.storedAt = Long.parseLong(properties.getProperty(STORED_AT, "0"));
+    }
+
+    public Optional<String> getETag() {
+      return Optional.ofNullable(properties.getProperty(ETAG));
+    }
+
+    public Optional<String> getLastModified() {
+      return Optional.ofNullable(properties.getProperty(LAST_MODIFIED));
+    }
+  }
+}
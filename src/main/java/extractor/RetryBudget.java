@@ -0,0 +1,44 @@
+package extractor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Caps the number of retries a whole run may issue, so that a failing server is not hit with
+ * a multiple of the regular traffic.
+ */
+public class RetryBudget {
+
+  private static final Logger LOGGER = Logger.getLogger(RetryBudget.class.getName());
+
+  public static final int DEFAULT_MAX_RETRIES = 1000;
+
+  private final int maxRetries;
+  private final AtomicInteger used = new AtomicInteger();
+
+  public RetryBudget() {
+    this(DEFAULT_MAX_RETRIES);
+  }
+
+  public RetryBudget(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public boolean tryAcquire() {
+    int retry = used.incrementAndGet();
+    if (retry == maxRetries + 1) {
+      LOGGER.log(WARNING, "Retry budget of {0} exhausted, failing requests are no longer retried", maxRetries);
+    }
+    return retry <= maxRetries;
+  }
+
+  public int getUsed() {
+    return Math.min(used.get(), maxRetries);
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+}
@@ -0,0 +1,198 @@
+package extractor;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import model.ExtractionStats;
+import model.QualityProfile;
+import model.Rule;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Active rules of quality profiles, retrieved once per profile key and shared by every project of a run.
+ * <p>
+ * When a folder is given, complete rule sets are also kept between runs, one file per profile key. A stored rule set
+ * is reused while the {@code rulesUpdatedAt} date of its profile, as reported by {@code /api/qualityprofiles/search},
+ * is unchanged; otherwise the profile is paged through again and its file replaced.
+ */
+public class RuleRepository {
+
+  private static final Logger LOGGER = Logger.getLogger(RuleRepository.class.getName());
+  private static final Gson GSON = new Gson();
+
+  private final AsyncApiConnector apiConnector;
+  private final Path folder;
+  private final Map<String, CompletableFuture<List<Rule>>> rulesByProfile = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<Map<String, QualityProfile>>> profilesByLanguage = new ConcurrentHashMap<>();
+
+  public RuleRepository(AsyncApiConnector apiConnector) {
+    this.apiConnector = apiConnector;
+    this.folder = null;
+  }
+
+  public RuleRepository(AsyncApiConnector apiConnector, String folder) {
+    this.apiConnector = apiConnector;
+    this.folder = Paths.get(folder);
+  }
+
+  /**
+   * Active rules of a profile. Concurrent callers for the same profile key share a single retrieval; a retrieval that
+   * missed some rules is not kept, so that the next caller pages through the profile again.
+   */
+  public CompletableFuture<List<Rule>> getRules(QualityProfile qualityProfile, ExtractionStats stats) {
+    String profileKey = qualityProfile.getKey();
+    CompletableFuture<List<Rule>> created = new CompletableFuture<>();
+    CompletableFuture<List<Rule>> shared = rulesByProfile.putIfAbsent(profileKey, created);
+    if (shared != null) {
+      return shared;
+    }
+    load(qualityProfile, stats).whenComplete((loaded, exception) -> {
+      if (exception != null || !loaded.complete) {
+        rulesByProfile.remove(profileKey, created);
+      }
+      if (exception != null) {
+        created.completeExceptionally(exception);
+      } else {
+        created.complete(loaded.rules);
+      }
+    });
+    return created;
+  }
+
+  /**
+   * Forgets the rules of a profile, in memory and on disk: the next request pages through them again.
+   */
+  public void invalidate(String profileKey) {
+    rulesByProfile.remove(profileKey);
+    if (folder != null) {
+      try {
+        Files.deleteIfExists(path(profileKey));
+      } catch (IOException exception) {
+        LOGGER.log(WARNING, "Failed to delete stored rules of profile {0}: {1}", new Object[] {profileKey, exception.getMessage()});
+      }
+    }
+  }
+
+  private CompletableFuture<LoadedRules> load(QualityProfile qualityProfile, ExtractionStats stats) {
+    if (folder == null) {
+      return fetch(qualityProfile, qualityProfile.getActiveRuleCount(), stats);
+    }
+    return currentProfile(qualityProfile, stats).thenCompose(current -> {
+      Optional<StoredRules> stored = read(qualityProfile.getKey());
+      if (stored.isPresent() && current.isEmpty()) {
+        LOGGER.log(WARNING, "Cannot check profile {0} against the server, using its stored rules", qualityProfile.getKey());
+        return CompletableFuture.completedFuture(new LoadedRules(stored.get().rules, true));
+      }
+      if (stored.isPresent() && stored.get().rulesUpdatedAt != null
+        && Objects.equals(stored.get().rulesUpdatedAt, current.get().getRulesUpdatedAt())) {
+        LOGGER.log(FINE, "Reusing stored rules of profile {0}", qualityProfile.getKey());
+        return CompletableFuture.completedFuture(new LoadedRules(stored.get().rules, true));
+      }
+      Integer expected = current.map(QualityProfile::getActiveRuleCount).orElse(null);
+      return fetch(qualityProfile, expected, stats).thenApply(loaded -> {
+        if (loaded.complete && expected != null) {
+          write(new StoredRules(qualityProfile.getKey(), current.get().getRulesUpdatedAt(), loaded.rules));
+        }
+        return loaded;
+      });
+    });
+  }
+
+  /**
+   * Pages through the rules of a profile: they are complete when no page failed and, if known, their number is the
+   * number of active rules of the profile.
+   */
+  private CompletableFuture<LoadedRules> fetch(QualityProfile qualityProfile, Integer expected, ExtractionStats stats) {
+    ExtractionStats fetchStats = stats.child();
+    return apiConnector.getRulesFromQualityProfile(qualityProfile, fetchStats).thenApply(rules -> {
+      boolean complete = fetchStats.getFailedPages() == 0 && (expected == null || expected == rules.size());
+      if (!complete) {
+        LOGGER.log(WARNING, "Retrieved {0} of {1} active rules of profile {2}, not keeping them",
+          new Object[] {rules.size(), expected, qualityProfile.getKey()});
+      }
+      return new LoadedRules(rules, complete);
+    });
+  }
+
+  private CompletableFuture<Optional<QualityProfile>> currentProfile(QualityProfile qualityProfile, ExtractionStats stats) {
+    return profilesByLanguage
+      .computeIfAbsent(qualityProfile.getLanguage(), language -> apiConnector.getQualityProfiles(language, stats)
+        .thenApply(profiles -> profiles.stream().collect(Collectors.toMap(QualityProfile::getKey, Function.identity(), (a, b) -> a))))
+      .thenApply(profiles -> Optional.ofNullable(profiles.get(qualityProfile.getKey())));
+  }
+
+  private Optional<StoredRules> read(String profileKey) {
+    Path path = path(profileKey);
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+    try (Reader reader = Files.newBufferedReader(path)) {
+      StoredRules storedRules = PooledTypeAdapterFactory.gson(new StringPool()).fromJson(reader, StoredRules.class);
+      return Optional.ofNullable(storedRules).filter(stored -> stored.rules != null);
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.log(WARNING, "Ignoring unreadable rules {0}: {1}", new Object[] {path, exception.getMessage()});
+      return Optional.empty();
+    }
+  }
+
+  private void write(StoredRules storedRules) {
+    Path path = path(storedRules.profileKey);
+    try {
+      Files.createDirectories(folder);
+      Path temporary = Files.createTempFile(folder, path.getFileName().toString(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(temporary)) {
+        GSON.toJson(storedRules, writer);
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      LOGGER.log(INFO, "Stored {0} rules of profile {1}", new Object[] {storedRules.rules.size(), storedRules.profileKey});
+    } catch (IOException exception) {
+      LOGGER.log(WARNING, "Failed to store rules of profile {0}: {1}", new Object[] {storedRules.profileKey, exception.getMessage()});
+    }
+  }
+
+  private Path path(String profileKey) {
+    return folder.resolve(profileKey.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+  }
+
+  private static class LoadedRules {
+
+    private final List<Rule> rules;
+    private final boolean complete;
+
+    private LoadedRules(List<Rule> rules, boolean complete) {
+      this.rules = Collections.unmodifiableList(rules);
+      this.complete = complete;
+    }
+  }
+
+  private static class StoredRules {
+
+    private final String profileKey;
+    private final String rulesUpdatedAt;
+    private final List<Rule> rules;
+
+    private StoredRules(String profileKey, String rulesUpdatedAt, List<Rule> rules) {
+      this.profileKey = profileKey;
+      this.rulesUpdatedAt = rulesUpdatedAt;
+      this.rules = rules;
+    }
+  }
+}
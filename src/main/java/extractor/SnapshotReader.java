@@ -0,0 +1,370 @@
+package extractor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import model.Component;
+import model.Issue;
+import model.ProjectAnalysisQuality;
+import model.ProjectAnalysisResult;
+import model.TextRange;
+
+import static extractor.BinarySnapshot.ELIGIBLE;
+import static extractor.BinarySnapshot.FILE_RECORD_BYTES;
+import static extractor.BinarySnapshot.FOOTER_BYTES;
+import static extractor.BinarySnapshot.HAS_TEXT_RANGE;
+import static extractor.BinarySnapshot.INDEX_RECORD_BYTES;
+import static extractor.BinarySnapshot.ISSUE_RECORD_BYTES;
+import static extractor.BinarySnapshot.MAGIC;
+import static extractor.BinarySnapshot.MAX_LABELS;
+import static extractor.BinarySnapshot.NO_DATE;
+import static extractor.BinarySnapshot.REVISION_RECORD_BYTES;
+import static extractor.BinarySnapshot.TABLES;
+import static extractor.BinarySnapshot.TEXT_RANGE_RECORD_BYTES;
+import static extractor.BinarySnapshot.VERSION;
+import static extractor.BinarySnapshot.WIDE_TEXT_RANGE;
+
+/**
+ * Binary snapshot mapped in memory, see {@link BinarySnapshot} for its layout.
+ * <p>
+ * Only the header, files and file revisions are decoded when the snapshot is opened. Issues are decoded from the
+ * mapped file each time they are accessed, all of them or those of a component, so that the heap does not grow with
+ * the size of the snapshots being processed: callers going through issues more than once copy the few they need, e.g.
+ * those of one component at a time. Strings are decoded once and shared by every issue. The mapping is released once
+ * the reader and the results and issues it returned are no longer referenced.
+ */
+public class SnapshotReader {
+
+  private final ByteBuffer buffer;
+  // Strings of the header and labels, pooled while the reader is referenced
+  private final StringPool stringPool = new StringPool();
+  private final int headerLength;
+  private final int stringOffsets;
+  private final int stringBytes;
+  private final String[] strings;
+  private final String[] labels;
+  private final ProjectAnalysisQuality projectAnalysisQuality;
+  private final Result baseResult;
+  private final Result targetResult;
+
+  private SnapshotReader(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.limit() < 2 * Integer.BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC
+      || buffer.getInt(buffer.limit() - Integer.BYTES) != MAGIC) {
+      throw new IOException("Not a binary snapshot, or a truncated one");
+    }
+    int version = buffer.getInt(Integer.BYTES);
+    if (version != VERSION) {
+      throw new IOException("Unsupported binary snapshot version " + version);
+    }
+    headerLength = buffer.getInt(2 * Integer.BYTES);
+    int position = 3 * Integer.BYTES;
+    projectAnalysisQuality = decodeHeader();
+    position += headerLength;
+
+    int stringCount = buffer.getInt(position);
+    strings = new String[stringCount];
+    stringOffsets = position + Integer.BYTES;
+    stringBytes = stringOffsets + (stringCount + 1) * Integer.BYTES;
+    position = stringBytes + buffer.getInt(stringOffsets + stringCount * Integer.BYTES);
+
+    labels = new String[buffer.getInt(position)];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = stringPool.canonical(string(buffer.getInt(position + (i + 1) * Integer.BYTES)));
+    }
+
+    int footer = buffer.limit() - FOOTER_BYTES;
+    baseResult = result(projectAnalysisQuality.getBaseComponentResult(), footer);
+    targetResult = result(projectAnalysisQuality.getTargetComponentResult(), footer + TABLES * Integer.BYTES);
+  }
+
+  /**
+   * Maps a binary snapshot file. The mapping stays valid once the file channel is closed.
+   */
+  public static SnapshotReader open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot larger than 2 GB: " + path);
+      }
+      return new SnapshotReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * The snapshot, whose results have their files and revisions decoded, and their issues decoded on access.
+   */
+  public ProjectAnalysisQuality getProjectAnalysisQuality() {
+    return projectAnalysisQuality;
+  }
+
+  /**
+   * @return {@code null} when the snapshot has no base result
+   */
+  public Result getBaseResult() {
+    return baseResult;
+  }
+
+  /**
+   * @return {@code null} when the snapshot has no target result
+   */
+  public Result getTargetResult() {
+    return targetResult;
+  }
+
+  /**
+   * Decodes the whole snapshot onto the heap, as it was written.
+   */
+  public ProjectAnalysisQuality decodeAll() {
+    ProjectAnalysisQuality decoded = decodeHeader();
+    copyTables(baseResult, decoded.getBaseComponentResult());
+    copyTables(targetResult, decoded.getTargetComponentResult());
+    return decoded;
+  }
+
+  private static void copyTables(Result result, ProjectAnalysisResult decoded) {
+    if (result != null) {
+      decoded.setComponents(result.result.getComponents());
+      decoded.setComponentRevisions(result.result.getComponentRevisions());
+      decoded.setIssues(result.getIssues() == null ? null : new ArrayList<>(result.getIssues()));
+    }
+  }
+
+  private Result result(ProjectAnalysisResult result, int footer) throws IOException {
+    int[] tables = new int[TABLES];
+    for (int i = 0; i < TABLES; i++) {
+      tables[i] = buffer.getInt(footer + i * Integer.BYTES);
+    }
+    if (tables[0] < 0) {
+      return null;
+    }
+    if (result == null) {
+      throw new IOException("Binary snapshot has tables for a result missing from its header");
+    }
+    return new Result(result, tables);
+  }
+
+  private ProjectAnalysisQuality decodeHeader() {
+    return PooledTypeAdapterFactory.gson(stringPool)
+      .fromJson(decode(3 * Integer.BYTES, headerLength), ProjectAnalysisQuality.class);
+  }
+
+  private String decode(int position, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(position, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private String string(int index) {
+    if (index < 0) {
+      return null;
+    }
+    // Racing threads may decode a string twice, which is harmless
+    String string = strings[index];
+    if (string == null) {
+      int start = buffer.getInt(stringOffsets + index * Integer.BYTES);
+      int end = buffer.getInt(stringOffsets + (index + 1) * Integer.BYTES);
+      string = decode(stringBytes + start, end - start);
+      strings[index] = string;
+    }
+    return string;
+  }
+
+  private String label(byte index) {
+    int unsigned = Byte.toUnsignedInt(index);
+    return unsigned == MAX_LABELS ? null : labels[unsigned];
+  }
+
+  private static TextRange textRange(int startLine, int endLine, int startOffset, int endOffset) {
+    TextRange textRange = new TextRange();
+    textRange.setStartLine(startLine);
+    textRange.setEndLine(endLine);
+    textRange.setStartOffset(startOffset);
+    textRange.setEndOffset(endOffset);
+    return textRange;
+  }
+
+  /**
+   * Issues, files and revisions of the base or target result of a snapshot.
+   */
+  public class Result implements ComponentIssueIndex {
+
+    private final ProjectAnalysisResult result;
+    private final int issueCount;
+    private final int issues;
+    private final int wideTextRanges;
+    private final int componentIndex;
+    // Position of the issues of each component in the index, built on first lookup
+    private Map<String, Integer> componentPositions;
+
+    private Result(ProjectAnalysisResult result, int[] tables) {
+      this.result = result;
+      result.setComponents(readFiles(tables[0]));
+      result.setComponentRevisions(readRevisions(tables[1]));
+      issueCount = buffer.getInt(tables[2]);
+      issues = tables[2] + Integer.BYTES;
+      wideTextRanges = tables[3] + Integer.BYTES;
+      componentIndex = tables[4];
+      result.setIssues(issueCount < 0 ? null : new AllIssues());
+    }
+
+    /**
+     * All issues, grouped by component, decoded on access. The list is also the {@link ComponentIssueIndex} of the
+     * result.
+     */
+    public List<Issue> getIssues() {
+      return result.getIssues();
+    }
+
+    public int getIssueCount() {
+      return Math.max(issueCount, 0);
+    }
+
+    @Override
+    public List<String> getComponentsWithIssues() {
+      int count = buffer.getInt(componentIndex);
+      List<String> keys = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        keys.add(string(buffer.getInt(componentIndex + Integer.BYTES + i * INDEX_RECORD_BYTES)));
+      }
+      return keys;
+    }
+
+    /**
+     * Issues of a component, decoded on access.
+     */
+    @Override
+    public List<Issue> getIssuesOfComponent(String componentKey) {
+      Integer position = componentPositions().get(componentKey);
+      if (position == null) {
+        return Collections.emptyList();
+      }
+      return new Issues(buffer.getInt(position + Integer.BYTES), buffer.getInt(position + 2 * Integer.BYTES));
+    }
+
+    private synchronized Map<String, Integer> componentPositions() {
+      if (componentPositions == null) {
+        int count = buffer.getInt(componentIndex);
+        componentPositions = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+          int position = componentIndex + Integer.BYTES + i * INDEX_RECORD_BYTES;
+          componentPositions.put(string(buffer.getInt(position)), position);
+        }
+      }
+      return componentPositions;
+    }
+
+    private Issue issue(int number) {
+      int position = issues + number * ISSUE_RECORD_BYTES;
+      Issue issue = new Issue();
+      issue.setKey(string(buffer.getInt(position)));
+      issue.setRule(string(buffer.getInt(position + 4)));
+      issue.setComponent(string(buffer.getInt(position + 8)));
+      issue.setSeverity(label(buffer.get(position + 12)));
+      issue.setStatus(label(buffer.get(position + 13)));
+      issue.setType(label(buffer.get(position + 14)));
+      int flags = buffer.get(position + 15);
+      int startLine = buffer.getInt(position + 16);
+      if ((flags & WIDE_TEXT_RANGE) != 0) {
+        int wide = wideTextRanges + startLine * TEXT_RANGE_RECORD_BYTES;
+        issue.setTextRange(textRange(buffer.getInt(wide), buffer.getInt(wide + 4), buffer.getInt(wide + 8),
+          buffer.getInt(wide + 12)));
+      } else if ((flags & HAS_TEXT_RANGE) != 0) {
+        issue.setTextRange(textRange(startLine, startLine + Short.toUnsignedInt(buffer.getShort(position + 20)),
+          Short.toUnsignedInt(buffer.getShort(position + 22)), Short.toUnsignedInt(buffer.getShort(position + 24))));
+      }
+      return issue;
+    }
+
+    private List<Component> readFiles(int table) {
+      int count = buffer.getInt(table);
+      if (count < 0) {
+        return null;
+      }
+      List<Component> files = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        int position = table + Integer.BYTES + i * FILE_RECORD_BYTES;
+        Component file = new Component();
+        file.setOrganization(string(buffer.getInt(position)));
+        file.setKey(string(buffer.getInt(position + 4)));
+        file.setName(string(buffer.getInt(position + 8)));
+        file.setQualifier(string(buffer.getInt(position + 12)));
+        file.setLanguage(string(buffer.getInt(position + 16)));
+        file.setEligibilityStatus(string(buffer.getInt(position + 20)));
+        long analysisDate = buffer.getLong(position + 24);
+        file.setAnalysisDate(analysisDate == NO_DATE ? null : new Date(analysisDate));
+        file.setEligible((buffer.getInt(position + 32) & ELIGIBLE) != 0);
+        files.add(file);
+      }
+      return files;
+    }
+
+    private Map<String, String> readRevisions(int table) {
+      int count = buffer.getInt(table);
+      if (count < 0) {
+        return null;
+      }
+      Map<String, String> revisions = new LinkedHashMap<>(count * 4 / 3 + 1);
+      for (int i = 0; i < count; i++) {
+        int position = table + Integer.BYTES + i * REVISION_RECORD_BYTES;
+        revisions.put(string(buffer.getInt(position)), string(buffer.getInt(position + 4)));
+      }
+      return revisions;
+    }
+
+    /**
+     * Consecutive issues from {@code first}, decoded on every access.
+     */
+    private class Issues extends AbstractList<Issue> implements RandomAccess {
+
+      private final int first;
+      private final int size;
+
+      Issues(int first, int size) {
+        this.first = first;
+        this.size = size;
+      }
+
+      @Override
+      public Issue get(int index) {
+        if (index < 0 || index >= size) {
+          throw new IndexOutOfBoundsException(index);
+        }
+        return issue(first + index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    }
+
+    private class AllIssues extends Issues implements ComponentIssueIndex {
+
+      AllIssues() {
+        super(0, issueCount);
+      }
+
+      @Override
+      public List<String> getComponentsWithIssues() {
+        return Result.this.getComponentsWithIssues();
+      }
+
+      @Override
+      public List<Issue> getIssuesOfComponent(String componentKey) {
+        return Result.this.getIssuesOfComponent(componentKey);
+      }
+    }
+  }
+}
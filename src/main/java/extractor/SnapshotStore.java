@@ -0,0 +1,323 @@
+package extractor;
+
+import com.google.gson.Gson;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import model.ProjectAnalysisQuality;
+import model.ProjectAnalysisResult;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Snapshots of extracted projects, one file per project key in an output folder.
+ * <p>
+ * Snapshots are written in the binary format of {@link BinarySnapshot}. JSON snapshots, written before that format
+ * existed or exported with {@link #writeJson}, are still read.
+ */
+public class SnapshotStore {
+
+  private static final Logger LOGGER = Logger.getLogger(SnapshotStore.class.getName());
+  private static final Gson GSON = new Gson();
+
+  private final Path folder;
+
+  public SnapshotStore(String folder) {
+    this.folder = Paths.get(folder);
+  }
+
+  public Path getFolder() {
+    return folder;
+  }
+
+  public Path path(String projectKey) {
+    return folder.resolve(projectKey.replace(":", "_"));
+  }
+
+  public Optional<ProjectAnalysisQuality> load(String projectKey) {
+    return load(projectKey, SnapshotStore::read);
+  }
+
+  /**
+   * The snapshot without the issues, files and revisions of its results, enough to plan a run from the extraction
+   * stats and analyzed branch it records. Only the header of a binary snapshot is read; a JSON snapshot is read whole.
+   */
+  public Optional<ProjectAnalysisQuality> loadHeader(String projectKey) {
+    return load(projectKey, SnapshotStore::readHeader);
+  }
+
+  private Optional<ProjectAnalysisQuality> load(String projectKey, SnapshotFileReader reader) {
+    Path path = path(projectKey);
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.ofNullable(reader.read(path));
+    } catch (IOException | RuntimeException exception) {
+      LOGGER.log(WARNING, "Ignoring unreadable snapshot {0}: {1}", new Object[] {path, exception.getMessage()});
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Reads a snapshot file, binary or JSON, onto the heap.
+   */
+  public static ProjectAnalysisQuality read(Path path) throws IOException {
+    return isBinary(path) ? SnapshotReader.open(path).decodeAll() : readJson(path);
+  }
+
+  private static ProjectAnalysisQuality readHeader(Path path) throws IOException {
+    if (!isBinary(path)) {
+      return readJson(path);
+    }
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+      return BinarySnapshot.readHeader(inputStream);
+    }
+  }
+
+  /**
+   * Maps a snapshot file: the issues of a binary snapshot stay in the file and are decoded when accessed, see
+   * {@link SnapshotReader}. A JSON snapshot is read onto the heap.
+   */
+  public static ProjectAnalysisQuality map(Path path) throws IOException {
+    return isBinary(path) ? SnapshotReader.open(path).getProjectAnalysisQuality() : readJson(path);
+  }
+
+  /**
+   * Maps snapshot files together, see {@link #map(Path)}, until the returned snapshots are closed. JSON snapshots are
+   * parsed onto the heap once their size fits in the memory budget along with the other JSON snapshots open, a larger
+   * one waiting to be alone.
+   */
+  public static MappedSnapshots map(MemoryBudget memoryBudget, Path... paths) throws IOException {
+    int cost = 0;
+    for (Path path : paths) {
+      if (!isBinary(path)) {
+        cost = memoryBudget.add(cost, Files.size(path));
+      }
+    }
+    memoryBudget.acquire(cost);
+    try {
+      List<ProjectAnalysisQuality> snapshots = new ArrayList<>(paths.length);
+      for (Path path : paths) {
+        snapshots.add(map(path));
+      }
+      return new MappedSnapshots(snapshots, memoryBudget, cost);
+    } catch (IOException | RuntimeException exception) {
+      memoryBudget.release(cost);
+      throw exception;
+    }
+  }
+
+  /**
+   * Headers of every snapshot of the folder, see {@link #loadHeader}, with the file each was read from, read on up to
+   * {@code threads} threads in the order of their file names. JSON snapshots are parsed whole within the memory
+   * budget, then only their header is kept. Unreadable snapshots are logged and left out.
+   */
+  public Map<ProjectAnalysisQuality, Path> loadHeaders(int threads, MemoryBudget memoryBudget) throws IOException {
+    List<Path> paths;
+    try (Stream<Path> files = Files.list(folder)) {
+      paths = files
+        .filter(path -> Files.isRegularFile(path) && !path.getFileName().toString().endsWith(".tmp"))
+        .sorted()
+        .collect(Collectors.toList());
+    }
+    List<Future<ProjectAnalysisQuality>> headers = new ArrayList<>(paths.size());
+    try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+      for (Path path : paths) {
+        headers.add(executor.submit(() -> {
+          if (isBinary(path)) {
+            return readHeader(path);
+          }
+          try (MappedSnapshots snapshot = map(memoryBudget, path)) {
+            return withoutTables(snapshot.get(0));
+          }
+        }));
+      }
+      // Headers have no equals: one entry per snapshot
+      Map<ProjectAnalysisQuality, Path> loaded = new LinkedHashMap<>();
+      try {
+        for (int i = 0; i < headers.size(); i++) {
+          try {
+            loaded.put(result(headers.get(i), paths.get(i)), paths.get(i));
+          } catch (InterruptedIOException exception) {
+            throw exception;
+          } catch (IOException exception) {
+            LOGGER.log(WARNING, "Ignoring unreadable snapshot {0}: {1}",
+              new Object[] {paths.get(i), String.valueOf(exception.getCause())});
+          }
+        }
+      } catch (IOException exception) {
+        // Closing the executor waits for the headers still loading
+        headers.forEach(header -> header.cancel(true));
+        throw exception;
+      }
+      return loaded;
+    }
+  }
+
+  private static ProjectAnalysisQuality withoutTables(ProjectAnalysisQuality projectAnalysisQuality) {
+    for (ProjectAnalysisResult result : Arrays.asList(projectAnalysisQuality.getBaseComponentResult(),
+      projectAnalysisQuality.getTargetComponentResult())) {
+      if (result != null) {
+        result.setIssues(null);
+        result.setComponents(null);
+        result.setComponentRevisions(null);
+      }
+    }
+    return projectAnalysisQuality;
+  }
+
+  private static ProjectAnalysisQuality result(Future<ProjectAnalysisQuality> snapshot, Path path) throws IOException {
+    try {
+      return snapshot.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while loading " + path);
+    } catch (ExecutionException exception) {
+      throw new IOException("Failed to load snapshot " + path, exception.getCause());
+    }
+  }
+
+  private static boolean isBinary(Path path) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      return BinarySnapshot.isBinary(inputStream.readNBytes(Integer.BYTES));
+    }
+  }
+
+  private static ProjectAnalysisQuality readJson(Path path) throws IOException {
+    // Strings repeated by the issues of the snapshot, pooled while it is read
+    Gson gson = PooledTypeAdapterFactory.gson(new StringPool());
+    try (Reader reader = Files.newBufferedReader(path)) {
+      return gson.fromJson(reader, ProjectAnalysisQuality.class);
+    }
+  }
+
+  public Optional<ProjectAnalysisResult> loadResult(String projectKey) {
+    return load(projectKey).map(ProjectAnalysisQuality::getBaseComponentResult);
+  }
+
+  /**
+   * Base result of the snapshot, without its issues, files and revisions: see {@link #loadHeader}.
+   */
+  public Optional<ProjectAnalysisResult> loadResultHeader(String projectKey) {
+    return loadHeader(projectKey).map(ProjectAnalysisQuality::getBaseComponentResult);
+  }
+
+  /**
+   * Writes a snapshot to a temporary file first, then moves it in place: readers never see a half-written snapshot.
+   */
+  public void write(ProjectAnalysisQuality projectAnalysisQuality) throws IOException {
+    Files.createDirectories(folder);
+    Path path = path(projectAnalysisQuality.getBaseComponent().getKey());
+    Path temporary = Files.createTempFile(folder, path.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+        BinarySnapshot.write(projectAnalysisQuality, outputStream);
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Writes a snapshot as JSON, the format used before binary snapshots, e.g. to inspect it or to feed other tools.
+   */
+  public static void writeJson(ProjectAnalysisQuality projectAnalysisQuality, Path path) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(path)) {
+      GSON.toJson(projectAnalysisQuality, writer);
+    }
+  }
+
+  @FunctionalInterface
+  private interface SnapshotFileReader {
+    ProjectAnalysisQuality read(Path path) throws IOException;
+  }
+
+  /**
+   * Heap allowed to the JSON snapshots open at the same time, counted as the size of their files.
+   */
+  public static class MemoryBudget {
+
+    // In KB, for a semaphore to count it
+    private final int budget;
+    private final Semaphore memory;
+
+    public MemoryBudget(long bytes) {
+      budget = (int) Math.min(Math.max(bytes / 1024, 1), Integer.MAX_VALUE);
+      memory = new Semaphore(budget, true);
+    }
+
+    private int add(int cost, long bytes) {
+      return (int) Math.min(cost + Math.max(bytes / 1024, 1), budget);
+    }
+
+    private void acquire(int cost) throws InterruptedIOException {
+      try {
+        memory.acquire(cost);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for memory to map snapshots");
+      }
+    }
+
+    private void release(int cost) {
+      memory.release(cost);
+    }
+  }
+
+  /**
+   * Snapshots mapped together, released when closed: they must not be used afterwards.
+   */
+  public static class MappedSnapshots implements AutoCloseable {
+
+    private final List<ProjectAnalysisQuality> snapshots;
+    private final MemoryBudget memoryBudget;
+    private final int cost;
+
+    private MappedSnapshots(List<ProjectAnalysisQuality> snapshots, MemoryBudget memoryBudget, int cost) {
+      this.snapshots = snapshots;
+      this.memoryBudget = memoryBudget;
+      this.cost = cost;
+    }
+
+    /**
+     * The snapshot of the {@code index}th path.
+     */
+    public ProjectAnalysisQuality get(int index) {
+      return snapshots.get(index);
+    }
+
+    @Override
+    public void close() {
+      if (!snapshots.isEmpty()) {
+        // Binary snapshots are unmapped once collected
+        snapshots.clear();
+        memoryBudget.release(cost);
+      }
+    }
+  }
+}
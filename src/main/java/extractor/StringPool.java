@@ -0,0 +1,46 @@
+package extractor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of the strings that millions of deserialized objects repeat: rule keys, component keys, organizations,
+ * languages, qualifiers, and issue severities, statuses and types. Each distinct value is kept once and shared.
+ * <p>
+ * A pool belongs to whatever deserializes with it, a connector or the reading of one file, and is dropped with it.
+ * Issue keys and other unique values are not pooled: sharing them saves nothing.
+ */
+public final class StringPool {
+
+  // Values of the low-cardinality fields known to the Web API, pooled up front
+  private static final List<String> LABELS = List.of(
+    "BLOCKER", "CRITICAL", "MAJOR", "MINOR", "INFO",
+    "OPEN", "CONFIRMED", "REOPENED", "RESOLVED", "CLOSED", "TO_REVIEW", "REVIEWED", "ACCEPTED",
+    "BUG", "VULNERABILITY", "CODE_SMELL", "SECURITY_HOTSPOT");
+
+  private final Map<String, String> pool = new ConcurrentHashMap<>();
+
+  public StringPool() {
+    LABELS.forEach(label -> pool.put(label, label));
+  }
+
+  /**
+   * @return the pooled string equal to {@code value}, {@code value} itself if it is the first of its kind
+   */
+  public String canonical(String value) {
+    if (value == null) {
+      return null;
+    }
+    String pooled = pool.get(value);
+    if (pooled != null) {
+      return pooled;
+    }
+    pooled = pool.putIfAbsent(value, value);
+    return pooled == null ? value : pooled;
+  }
+
+  public int size() {
+    return pool.size();
+  }
+}
@@ -1,11 +1,13 @@
 package model;
 
 import java.util.List;
+import java.util.Optional;
 
 public class ComponentIssues {
 
   private int total;
   private List<Issue> issues;
+  private List<Facet> facets;
 
   public int getTotal() {
     return total;
@@ -22,4 +24,18 @@ public class ComponentIssues {
   public void setIssues(List<Issue> issues) {
     this.issues = issues;
   }
+
+  public List<Facet> getFacets() {
+    return facets;
+  }
+
+  public void setFacets(List<Facet> facets) {
+    this.facets = facets;
+  }
+
+  public Optional<Facet> getFacet(String property) {
+    return facets == null ? Optional.empty() : facets.stream()
+      .filter(f -> property.equals(f.getProperty()))
+      .findFirst();
+  }
 }
@@ -0,0 +1,58 @@
+package model;
+
+public class ExtractionStats {
+
+  private String projectKey;
+  private int retriedPages;
+  private int failedPages;
+  private long durationMillis;
+  // Stats this one also counts into, for a unit of work within an extraction
+  private transient ExtractionStats parent;
+
+  public ExtractionStats(String projectKey) {
+    this.projectKey = projectKey;
+  }
+
+  /**
+   * Stats of a part of this extraction, whose retries and failures are also counted here.
+   */
+  public ExtractionStats child() {
+    ExtractionStats child = new ExtractionStats(projectKey);
+    child.parent = this;
+    return child;
+  }
+
+  public String getProjectKey() {
+    return projectKey;
+  }
+
+  public synchronized int getRetriedPages() {
+    return retriedPages;
+  }
+
+  public synchronized void incrementRetriedPages() {
+    retriedPages++;
+    if (parent != null) {
+      parent.incrementRetriedPages();
+    }
+  }
+
+  public synchronized int getFailedPages() {
+    return failedPages;
+  }
+
+  public synchronized void incrementFailedPages() {
+    failedPages++;
+    if (parent != null) {
+      parent.incrementFailedPages();
+    }
+  }
+
+  public synchronized long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public synchronized void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+}
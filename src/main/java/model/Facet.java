@@ -0,0 +1,25 @@
+package model;
+
+import java.util.List;
+
+public class Facet {
+
+  private String property;
+  private List<FacetValue> values;
+
+  public String getProperty() {
+    return property;
+  }
+
+  public void setProperty(String property) {
+    this.property = property;
+  }
+
+  public List<FacetValue> getValues() {
+    return values;
+  }
+
+  public void setValues(List<FacetValue> values) {
+    this.values = values;
+  }
+}
@@ -0,0 +1,23 @@
+package model;
+
+public class FacetValue {
+
+  private String val;
+  private int count;
+
+  public String getVal() {
+    return val;
+  }
+
+  public void setVal(String val) {
+    this.val = val;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+}
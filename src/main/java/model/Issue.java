@@ -1,9 +1,11 @@
 package model;
 
-import java.util.Objects;
-
 public class Issue {
 
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long NO_VALUE = 0x9e3779b97f4a7c15L;
+
   private String key;
   private String rule;
   private String severity;
@@ -12,6 +14,8 @@ public class Issue {
   private TextRange textRange;
   private String component;
   private String comparableComponent;
+  // Hash of the fields compared by equals, 0 until computed
+  private transient long fingerprint;
 
   public String getKey() {
     return key;
@@ -27,6 +31,7 @@ public class Issue {
 
   public void setRule(String rule) {
     this.rule = rule;
+    this.fingerprint = 0;
   }
 
   public String getSeverity() {
@@ -59,6 +64,7 @@ public class Issue {
 
   public void setTextRange(TextRange textRange) {
     this.textRange = textRange;
+    this.fingerprint = 0;
   }
 
   public String getComponent() {
@@ -67,6 +73,7 @@ public class Issue {
 
   public void setComponent(String component) {
     this.component = component;
+    this.fingerprint = 0;
   }
 
   public String getComparableComponent() {
@@ -76,13 +83,58 @@ public class Issue {
     return comparableComponent;
   }
 
+  /**
+   * 64-bit hash of the rule, text range and comparable component, the fields compared by {@link #equals(Object)}:
+   * equal issues have the same fingerprint. Computed once, without allocating; never 0.
+   */
+  public long getFingerprint() {
+    if (fingerprint == 0) {
+      long hash = hash(FNV_OFFSET_BASIS, rule, 0);
+      if (textRange == null) {
+        hash = hash(hash, NO_VALUE);
+      } else {
+        hash = hash(hash, textRange.getStartLine());
+        hash = hash(hash, textRange.getEndLine());
+        hash = hash(hash, textRange.getStartOffset());
+        hash = hash(hash, textRange.getEndOffset());
+      }
+      hash = hash(hash, component, component == null ? 0 : Math.max(component.indexOf(':'), 0));
+      hash = mix(hash);
+      fingerprint = hash == 0 ? 1 : hash;
+    }
+    return fingerprint;
+  }
+
+  private static long hash(long hash, String value, int from) {
+    if (value == null) {
+      return hash(hash, NO_VALUE);
+    }
+    for (int i = from; i < value.length(); i++) {
+      hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+    }
+    // Separates consecutive strings
+    return (hash ^ value.length() - from) * FNV_PRIME;
+  }
+
+  private static long hash(long hash, long value) {
+    return (hash ^ value) * FNV_PRIME;
+  }
+
+  // Final mix of MurmurHash3, spreading FNV's weak high bits
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Issue issue = (Issue) o;
+    if (fingerprint != 0 && issue.fingerprint != 0 && fingerprint != issue.fingerprint) return false;
     if (textRange != null && issue.textRange != null) {
-      return rule.equals(issue.rule) && textRange.equals(issue.textRange) && getComparableComponent().equals(issue.getComparableComponent());
+      return rule.equals(issue.rule) && textRange.equals(issue.textRange) && hasComparableComponent(issue);
     }
     if (textRange == null && issue.textRange != null) {
       return false;
@@ -90,12 +142,21 @@ public class Issue {
     if (textRange != null && issue.textRange == null) {
       return false;
     }
-    return rule.equals(issue.rule) && getComparableComponent().equals(issue.getComparableComponent());
+    return rule.equals(issue.rule) && hasComparableComponent(issue);
+  }
+
+  // Same as comparing getComparableComponent(), without computing it
+  private boolean hasComparableComponent(Issue issue) {
+    int from = component.indexOf(':');
+    int otherFrom = issue.component.indexOf(':');
+    int length = component.length() - from;
+    return from >= 0 && otherFrom >= 0 && length == issue.component.length() - otherFrom
+      && component.regionMatches(from, issue.component, otherFrom, length);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(rule, textRange, getComparableComponent());
+    return Long.hashCode(getFingerprint());
   }
 
   @Override
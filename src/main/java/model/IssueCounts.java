@@ -0,0 +1,51 @@
+package model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Number of issues by rule and type, standing for a list of issues whose details are not needed.
+ */
+public class IssueCounts {
+
+  // By rule, then by type
+  private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+
+  public void add(Issue issue) {
+    counts.computeIfAbsent(issue.getRule(), rule -> new HashMap<>()).merge(issue.getType(), 1, Integer::sum);
+  }
+
+  /**
+   * Counts of the rules accepted by the filter only.
+   */
+  public IssueCounts filterRules(Predicate<String> ruleFilter) {
+    IssueCounts filtered = new IssueCounts();
+    counts.forEach((rule, byType) -> {
+      if (ruleFilter.test(rule)) {
+        filtered.counts.put(rule, byType);
+      }
+    });
+    return filtered;
+  }
+
+  public long getTotal() {
+    return counts.values().stream()
+      .flatMap(byType -> byType.values().stream())
+      .mapToLong(Integer::longValue)
+      .sum();
+  }
+
+  public long getTotal(String type) {
+    return counts.values().stream()
+      .mapToLong(byType -> byType.getOrDefault(type, 0))
+      .sum();
+  }
+
+  public Map<String, Integer> getTotalByRule() {
+    Map<String, Integer> totals = new HashMap<>(counts.size() * 4 / 3 + 1);
+    counts.forEach((rule, byType) -> totals.put(rule, byType.values().stream().mapToInt(Integer::intValue).sum()));
+    return Collections.unmodifiableMap(totals);
+  }
+}
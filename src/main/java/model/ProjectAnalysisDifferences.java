@@ -9,8 +9,9 @@ public class ProjectAnalysisDifferences {
   private List<Issue> addedInCommonComponents;
   private List<Issue> missingInCommonComponents;
 
-  private List<Issue> baseIssues;
-  private List<Issue> baseIssuesInCommonComponents;
+  // Base issues are only counted: reports need their number, not their details
+  private IssueCounts baseIssueCounts;
+  private IssueCounts baseIssueCountsInCommonComponents;
 
   public List<Issue> getAdded() {
     return added;
@@ -48,21 +49,21 @@ public class ProjectAnalysisDifferences {
     return this;
   }
 
-  public List<Issue> getBaseIssues() {
-    return baseIssues;
+  public IssueCounts getBaseIssueCounts() {
+    return baseIssueCounts;
   }
 
-  public ProjectAnalysisDifferences setBaseIssues(List<Issue> baseIssues) {
-    this.baseIssues = baseIssues;
+  public ProjectAnalysisDifferences setBaseIssueCounts(IssueCounts baseIssueCounts) {
+    this.baseIssueCounts = baseIssueCounts;
     return this;
   }
 
-  public List<Issue> getBaseIssuesInCommonComponents() {
-    return baseIssuesInCommonComponents;
+  public IssueCounts getBaseIssueCountsInCommonComponents() {
+    return baseIssueCountsInCommonComponents;
   }
 
-  public ProjectAnalysisDifferences setBaseIssuesInCommonComponents(List<Issue> baseIssuesInCommonComponents) {
-    this.baseIssuesInCommonComponents = baseIssuesInCommonComponents;
+  public ProjectAnalysisDifferences setBaseIssueCountsInCommonComponents(IssueCounts baseIssueCountsInCommonComponents) {
+    this.baseIssueCountsInCommonComponents = baseIssueCountsInCommonComponents;
     return this;
   }
 }
@@ -12,6 +12,12 @@ public class ProjectAnalysisResult {
   private Map<String, Integer> locPerLanguages;
   // Store components (files) present in the analysis
   private List<Component> components;
+  // Retried and given up requests while extracting this result
+  private ExtractionStats extractionStats;
+  // Last commit date of each file, to find the files changed since this result in delta mode
+  private Map<String, String> componentRevisions;
+  // Analyzed branch, with the date and commit of the analysis this result was extracted from
+  private ProjectBranch branch;
 
   public List<Issue> getIssues() {
     return issues;
@@ -64,4 +70,28 @@ public class ProjectAnalysisResult {
   public void setComponents(List<Component> components) {
     this.components = components;
   }
+
+  public ExtractionStats getExtractionStats() {
+    return extractionStats;
+  }
+
+  public void setExtractionStats(ExtractionStats extractionStats) {
+    this.extractionStats = extractionStats;
+  }
+
+  public Map<String, String> getComponentRevisions() {
+    return componentRevisions;
+  }
+
+  public void setComponentRevisions(Map<String, String> componentRevisions) {
+    this.componentRevisions = componentRevisions;
+  }
+
+  public ProjectBranch getBranch() {
+    return branch;
+  }
+
+  public void setBranch(ProjectBranch branch) {
+    this.branch = branch;
+  }
 }
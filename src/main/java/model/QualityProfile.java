@@ -7,6 +7,8 @@ public class QualityProfile {
   private String key;
   private String name;
   private String language;
+  private String rulesUpdatedAt;
+  private Integer activeRuleCount;
   private List<Rule> rules;
 
   public String getKey() {
@@ -33,6 +35,22 @@ public class QualityProfile {
     this.language = language;
   }
 
+  public String getRulesUpdatedAt() {
+    return rulesUpdatedAt;
+  }
+
+  public void setRulesUpdatedAt(String rulesUpdatedAt) {
+    this.rulesUpdatedAt = rulesUpdatedAt;
+  }
+
+  public Integer getActiveRuleCount() {
+    return activeRuleCount;
+  }
+
+  public void setActiveRuleCount(Integer activeRuleCount) {
+    this.activeRuleCount = activeRuleCount;
+  }
+
   public List<Rule> getRules() {
     return rules;
   }
@@ -0,0 +1,16 @@
+package model;
+
+import java.util.List;
+
+public class QualityProfiles {
+
+  private List<QualityProfile> profiles;
+
+  public List<QualityProfile> getProfiles() {
+    return profiles;
+  }
+
+  public void setProfiles(List<QualityProfile> profiles) {
+    this.profiles = profiles;
+  }
+}
@@ -4,8 +4,17 @@ import java.util.List;
 
 public class ComponentMeasureContent {
 
+  String key;
   List<Measure> measures;
 
+  public String getKey() {
+    return key;
+  }
+
+  public void setKey(String key) {
+    this.key = key;
+  }
+
   public List<Measure> getMeasures() {
     return measures;
   }
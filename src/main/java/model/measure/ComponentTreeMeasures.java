@@ -0,0 +1,26 @@
+package model.measure;
+
+import java.util.List;
+import model.Paging;
+
+public class ComponentTreeMeasures {
+
+  private Paging paging;
+  private List<ComponentMeasureContent> components;
+
+  public Paging getPaging() {
+    return paging;
+  }
+
+  public void setPaging(Paging paging) {
+    this.paging = paging;
+  }
+
+  public List<ComponentMeasureContent> getComponents() {
+    return components;
+  }
+
+  public void setComponents(List<ComponentMeasureContent> components) {
+    this.components = components;
+  }
+}
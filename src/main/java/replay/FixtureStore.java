@@ -0,0 +1,93 @@
+package replay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Recorded API responses, one decompressed body per request path and query, whatever the host they came from.
+ * <p>
+ * Fixtures are recorded by the connector while it extracts from a real server, and served by {@link ReplayServer}.
+ * Each body file has a properties file next to it naming the request it answers.
+ */
+public class FixtureStore {
+
+  private static final String BODY_SUFFIX = ".json";
+  private static final String META_SUFFIX = ".properties";
+  private static final String REQUEST = "request";
+
+  private final Path directory;
+
+  public FixtureStore(Path directory) throws IOException {
+    this.directory = directory;
+    Files.createDirectories(directory);
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Copies a response body into a fixture and opens the stored copy.
+   */
+  public InputStream record(URI uri, InputStream body) throws IOException {
+    String request = request(uri.getRawPath(), uri.getRawQuery());
+    String key = key(request);
+    Path temporary = Files.createTempFile(directory, key, ".tmp");
+    try (body) {
+      Files.copy(body, temporary, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(temporary, bodyPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+
+    Properties properties = new Properties();
+    properties.setProperty(REQUEST, request);
+    try (Writer writer = Files.newBufferedWriter(metaPath(key), StandardCharsets.UTF_8)) {
+      properties.store(writer, null);
+    }
+    return Files.newInputStream(bodyPath(key));
+  }
+
+  /**
+   * Body recorded for a request, if any.
+   */
+  public Optional<Path> find(String rawPath, String rawQuery) {
+    Path body = bodyPath(key(request(rawPath, rawQuery)));
+    return Files.exists(body) ? Optional.of(body) : Optional.empty();
+  }
+
+  private static String request(String rawPath, String rawQuery) {
+    return rawQuery == null || rawQuery.isEmpty() ? rawPath : (rawPath + "?" + rawQuery);
+  }
+
+  private Path bodyPath(String key) {
+    return directory.resolve(key + BODY_SUFFIX);
+  }
+
+  private Path metaPath(String key) {
+    return directory.resolve(key + META_SUFFIX);
+  }
+
+  private static String key(String request) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder();
+      for (byte b : digest) {
+        key.append(String.format("%02x", b));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+
+/**
+ * In-process stand-in for the Web API, serving the responses of a {@link FixtureStore}.
+ * <p>
+ * Every request waits for a configurable latency, then may fail with HTTP 503 at a configurable rate, or be throttled
+ * with HTTP 429 and {@code Retry-After} once more requests than allowed arrive within a second. Requests without a
+ * fixture get HTTP 404. Bodies are gzipped for clients that accept it, as the real server does.
+ */
+public class ReplayServer implements Closeable {
+
+  private static final Logger LOGGER = Logger.getLogger(ReplayServer.class.getName());
+
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_NOT_FOUND = 404;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+  private final FixtureStore fixtures;
+  private Duration latency = Duration.ZERO;
+  private Duration latencyJitter = Duration.ZERO;
+  private double errorRate;
+  private int maxRequestsPerSecond = Integer.MAX_VALUE;
+
+  private final LongAdder served = new LongAdder();
+  private final LongAdder missing = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder throttled = new LongAdder();
+
+  private long currentSecond;
+  private int requestsInCurrentSecond;
+
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public ReplayServer(FixtureStore fixtures) {
+    this.fixtures = fixtures;
+  }
+
+  /**
+   * Delay before each response, plus a uniformly random extra delay up to {@code jitter}.
+   */
+  public ReplayServer withLatency(Duration latency, Duration jitter) {
+    this.latency = latency;
+    this.latencyJitter = jitter;
+    return this;
+  }
+
+  /**
+   * Fraction of requests, between 0 and 1, answered with HTTP 503.
+   */
+  public ReplayServer withErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+    return this;
+  }
+
+  /**
+   * Requests served per second, beyond which requests are answered with HTTP 429.
+   */
+  public ReplayServer withMaxRequestsPerSecond(int maxRequestsPerSecond) {
+    this.maxRequestsPerSecond = maxRequestsPerSecond;
+    return this;
+  }
+
+  /**
+   * @param port port to listen to on localhost, 0 for any free port
+   */
+  public ReplayServer start(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+    // Requests sleep through their latency: one virtual thread each
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+    LOGGER.log(INFO, "Replaying {0} on {1}", new Object[] {fixtures.getDirectory(), getBaseUrl()});
+    return this;
+  }
+
+  public String getBaseUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  public long getServed() {
+    return served.sum();
+  }
+
+  public long getMissing() {
+    return missing.sum();
+  }
+
+  public long getFailed() {
+    return failed.sum();
+  }
+
+  public long getThrottled() {
+    return throttled.sum();
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d served, %d missing, %d failed, %d throttled",
+      getServed(), getMissing(), getFailed(), getThrottled());
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      exchange.getRequestBody().readAllBytes();
+      if (!admit()) {
+        throttled.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, HTTP_TOO_MANY_REQUESTS, "Too many requests");
+        return;
+      }
+      long jitterMillis = latencyJitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(latencyJitter.toMillis() + 1);
+      sleep(latency.plusMillis(jitterMillis));
+      if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+        failed.increment();
+        sendError(exchange, HTTP_SERVICE_UNAVAILABLE, "Injected failure");
+        return;
+      }
+
+      Optional<Path> fixture = fixtures.find(exchange.getRequestURI().getRawPath(), exchange.getRequestURI().getRawQuery());
+      if (fixture.isEmpty()) {
+        missing.increment();
+        LOGGER.log(FINE, "No fixture for {0}", exchange.getRequestURI());
+        sendError(exchange, HTTP_NOT_FOUND, "No fixture for " + exchange.getRequestURI());
+        return;
+      }
+      served.increment();
+      sendFixture(exchange, fixture.get());
+    }
+  }
+
+  private synchronized boolean admit() {
+    long second = System.currentTimeMillis() / 1000;
+    if (second != currentSecond) {
+      currentSecond = second;
+      requestsInCurrentSecond = 0;
+    }
+    return ++requestsInCurrentSecond <= maxRequestsPerSecond;
+  }
+
+  private static void sendFixture(HttpExchange exchange, Path fixture) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      exchange.sendResponseHeaders(HTTP_OK, 0);
+      try (OutputStream body = new GZIPOutputStream(exchange.getResponseBody())) {
+        Files.copy(fixture, body);
+      }
+    } else {
+      exchange.sendResponseHeaders(HTTP_OK, Files.size(fixture));
+      try (OutputStream body = exchange.getResponseBody()) {
+        Files.copy(fixture, body);
+      }
+    }
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+    byte[] body = ("{\"errors\":[{\"msg\":\"" + message.replace("\"", "'") + "\"}]}").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+
+  private static void sleep(Duration duration) {
+    if (duration.isZero()) {
+      return;
+    }
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import model.Component;
-import model.ProjectAnalysisQuality;
 import model.ProjectAnalysisResult;
 
 public class AnalysisQualityLocComparison {
@@ -20,7 +19,10 @@ public class AnalysisQualityLocComparison {
   private AnalysisQualityLocComparison() {
   }
 
-  static void compareLoc(List<ProjectAnalysisQuality> projectsQuality) throws IOException {
+  /**
+   * Writes the comparisons of {@link #getLocComparison}, one line per project.
+   */
+  static void compareLoc(List<String> locComparisons) throws IOException {
     Files.createDirectories(Paths.get(OUTPUT_FOLDER));
     FileWriter fileWriter = new FileWriter(OUTPUT_FOLDER + "comparison");
     PrintWriter printWriter = new PrintWriter(fileWriter);
@@ -28,15 +30,13 @@ public class AnalysisQualityLocComparison {
     printWriter.println(
         "Project;Loc in base (CI); Loc in target (autoscan); Additional files in autoscan; additional files in CI; Additional files in autoscan (only lang-specific); additional files in CI (only lang-specific)");
 
-    projectsQuality.forEach(p -> printWriter.println(getLocComparison(p)));
+    locComparisons.forEach(printWriter::println);
 
     printWriter.close();
   }
 
-  private static String getLocComparison(ProjectAnalysisQuality p) {
-    ProjectAnalysisResult baseComponentResult = p.getBaseComponentResult();
-    ProjectAnalysisResult targetComponentResult = p.getTargetComponentResult();
-
+  static String getLocComparison(String projectKey, ProjectAnalysisResult baseComponentResult,
+      ProjectAnalysisResult targetComponentResult) {
     Map<String, Integer> baseLoc = baseComponentResult.getLocPerLanguages();
     Map<String, Integer> targetLoc = targetComponentResult.getLocPerLanguages();
 
@@ -60,7 +60,7 @@ public class AnalysisQualityLocComparison {
         .collect(Collectors.toList());
 
     return String.format("%s;%d;%d;%d;%d;%d;%d",
-        p.getBaseComponent().getKey(),
+        projectKey,
         baseLoc.getOrDefault(LANGUAGE_MONIKER, 0),
         targetLoc.getOrDefault(LANGUAGE_MONIKER, 0),
         added.size(),
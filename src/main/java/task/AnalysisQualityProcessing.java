@@ -13,6 +13,7 @@ import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import model.Issue;
+import model.IssueCounts;
 import model.ProjectAnalysisDifferences;
 import model.ProjectAnalysisMetrics;
 import model.ProjectAnalysisQuality;
@@ -35,7 +36,7 @@ public class AnalysisQualityProcessing {
 
   private final Function<ProjectAnalysisDifferences, List<Issue>> getMissing;
   private final Function<ProjectAnalysisDifferences, List<Issue>> getAdded;
-  private final Function<ProjectAnalysisDifferences, List<Issue>> getBaseIssues;
+  private final Function<ProjectAnalysisDifferences, IssueCounts> getBaseIssueCounts;
 
   private final String outputFolder;
   private final String outputFolderAll;
@@ -48,11 +49,11 @@ public class AnalysisQualityProcessing {
     if (onlyCommonComponents) {
       getMissing = ProjectAnalysisDifferences::getMissingInCommonComponents;
       getAdded = ProjectAnalysisDifferences::getAddedInCommonComponents;
-      getBaseIssues = ProjectAnalysisDifferences::getBaseIssuesInCommonComponents;
+      getBaseIssueCounts = ProjectAnalysisDifferences::getBaseIssueCountsInCommonComponents;
     } else {
       getMissing = ProjectAnalysisDifferences::getMissing;
       getAdded = ProjectAnalysisDifferences::getAdded;
-      getBaseIssues = ProjectAnalysisDifferences::getBaseIssues;
+      getBaseIssueCounts = ProjectAnalysisDifferences::getBaseIssueCounts;
     }
   }
 
@@ -80,12 +81,8 @@ public class AnalysisQualityProcessing {
       getMissing.apply(differences).forEach(i -> incrementMap(countMissing, i));
       getAdded.apply(differences).forEach(i -> incrementMap(countAdded, i));
       // Store number of issues by key
-      getBaseIssues.apply(differences).forEach(issue -> {
-          String ruleKey = issue.getRule();
-          Integer i = totalIssuesRaisedByRule.computeIfAbsent(ruleKey, k -> 0);
-          totalIssuesRaisedByRule.put(ruleKey, i + 1);
-        }
-      );
+      getBaseIssueCounts.apply(differences).getTotalByRule().forEach((ruleKey, count) ->
+        totalIssuesRaisedByRule.merge(ruleKey, count, Integer::sum));
     }
   }
 
@@ -100,15 +97,13 @@ public class AnalysisQualityProcessing {
     String name = projectAnalysisQuality.getBaseComponent().getName().replaceAll(":", "_");
     ProjectAnalysisDifferences differences = projectAnalysisQuality.getDifferences();
 
-    List<Issue> baseIssues;
+    IssueCounts baseIssues;
     List<Issue> added;
     List<Issue> missing;
     String folder;
 
     if (onlyLangSpecific) {
-      baseIssues = getBaseIssues.apply(differences).stream()
-        .filter(i -> i.getRule().startsWith(LANGUAGE_RULE_PREFIX))
-        .collect(Collectors.toList());
+      baseIssues = getBaseIssueCounts.apply(differences).filterRules(rule -> rule.startsWith(LANGUAGE_RULE_PREFIX));
       added = getAdded.apply(differences).stream()
         .filter(i -> i.getRule().startsWith(LANGUAGE_RULE_PREFIX))
         .collect(Collectors.toList());
@@ -118,7 +113,7 @@ public class AnalysisQualityProcessing {
 
       folder = outputFolderOnlyLangSpecific;
     } else {
-      baseIssues = getBaseIssues.apply(differences);
+      baseIssues = getBaseIssueCounts.apply(differences);
 
       added = getAdded.apply(differences);
       missing = getMissing.apply(differences);
@@ -129,7 +124,7 @@ public class AnalysisQualityProcessing {
       projectAnalysisQuality.getTargetComponentAnalysisMetrics());
   }
 
-  private static Summary generateOutputForProject(List<Issue> allAdded, List<Issue> allMissing, List<Issue> baseIssues,
+  private static Summary generateOutputForProject(List<Issue> allAdded, List<Issue> allMissing, IssueCounts baseIssues,
     String folder, String name, ProjectAnalysisMetrics metrics) throws IOException {
     PrintWriter printWriter = printWriter(folder, name);
 
@@ -142,11 +137,9 @@ public class AnalysisQualityProcessing {
 
     printWriter.println("====== Bugs ======");
 
-    String bugSummary = printIssuesDifference(added, missing, baseIssues.size(), name, printWriter);
+    String bugSummary = printIssuesDifference(added, missing, baseIssues.getTotal(), name, printWriter);
 
-    long baseIssuesVulnerability = baseIssues.stream()
-      .filter(i -> i.getType().equals(VULNERABILITY))
-      .count();
+    long baseIssuesVulnerability = baseIssues.getTotal(VULNERABILITY);
     List<Issue> addedVulnerability = allAdded.stream()
       .filter(i -> i.getType().equals(VULNERABILITY))
       .collect(Collectors.toList());
@@ -1,16 +1,27 @@
 package task;
 
-import com.google.gson.Gson;
 import extractor.ProjectAnalysis;
-import java.io.File;
-import java.io.FileReader;
+import extractor.SnapshotStore;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import model.Component;
 import model.ProjectAnalysisQuality;
+import model.ProjectAnalysisResult;
 
 import static task.AnalysisQualityLocComparison.compareLoc;
+import static task.AnalysisQualityLocComparison.getLocComparison;
 
 public class AnalysisResultFromFile {
 
@@ -18,45 +29,37 @@ public class AnalysisResultFromFile {
   public static final String OUTPUT_FOLDER_OLD = OUTPUT_FOLDER + "old/";
   public static final String OUTPUT_FOLDER_NEW = OUTPUT_FOLDER + "new/";
   public static final String AUTOSCAN_PREFIX = "autoscan";
+  private static final int LOADING_THREADS = Runtime.getRuntime().availableProcessors();
+  // JSON snapshots open at a time, in bytes of JSON
+  private static final long LOADING_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 8;
 
   public static void main(String[] args) throws IOException {
-    Gson gson = new Gson();
-
-    List<ProjectAnalysisQuality> baseQualities = new ArrayList<>();
-
-    for (File file : new File(OUTPUT_FOLDER_OLD).listFiles()) {
-      ProjectAnalysisQuality object = gson.fromJson(new FileReader(file), ProjectAnalysisQuality.class);
-      baseQualities.add(object);
-    }
-
-    List<ProjectAnalysisQuality> targetQualities = new ArrayList<>();
-
-    for (File file : new File(OUTPUT_FOLDER_NEW).listFiles()) {
-      ProjectAnalysisQuality object = gson.fromJson(new FileReader(file), ProjectAnalysisQuality.class);
-      targetQualities.add(object);
-    }
+    SnapshotStore baseStore = new SnapshotStore(OUTPUT_FOLDER_OLD);
+    SnapshotStore targetStore = new SnapshotStore(OUTPUT_FOLDER_NEW);
+    SnapshotStore.MemoryBudget memoryBudget = new SnapshotStore.MemoryBudget(LOADING_MEMORY_BUDGET);
+    Map<ProjectAnalysisQuality, Path> baseHeaders = baseStore.loadHeaders(LOADING_THREADS, memoryBudget);
+    Map<ProjectAnalysisQuality, Path> targetHeaders = targetStore.loadHeaders(LOADING_THREADS, memoryBudget);
+    List<ProjectAnalysisQuality> baseQualities = new ArrayList<>(baseHeaders.keySet());
+    List<ProjectAnalysisQuality> targetQualities = new ArrayList<>(targetHeaders.keySet());
 
     System.out.println("import done");
 
-    baseQualities.forEach(paq -> {
-      String name = paq.getBaseComponent().getName();
-      String targetName = getTargetName(name);
+    ProjectPairing.Result pairing = createPairing().pair(baseQualities, targetQualities);
+    pairing.getUnmatchedBases().forEach(paq ->
+      System.out.println("[WARN] No target project for " + paq.getBaseComponent().getName()));
+    pairing.getUnmatchedTargets().forEach(paq ->
+      System.out.println("[WARN] No base project for " + paq.getBaseComponent().getName()));
 
-      targetQualities.stream()
-        .filter(target -> target.getBaseComponent().getName().equalsIgnoreCase(targetName))
-        .findFirst()
-        .ifPresent(target -> {
-          paq.setTargetComponent(target.getBaseComponent());
-          paq.setTargetComponentResult(target.getBaseComponentResult());
-        });
-    });
+    System.out.println("matching done: " + pairing.getPaired() + " pairs");
 
-    System.out.println("matching done");
-
-    List<ProjectAnalysisQuality> projectsQuality = baseQualities.stream()
+    // A paired base holds the component of its target
+    Map<Component, Path> targetPaths = new IdentityHashMap<>();
+    targetHeaders.forEach((target, path) -> targetPaths.put(target.getBaseComponent(), path));
+    Map<ProjectAnalysisQuality, String> compared = compareProjects(baseQualities.stream()
       .filter(ProjectAnalysisQuality::hasTarget)
-      .map(ProjectAnalysis::processDifferences)
-      .collect(Collectors.toList());
+      .collect(Collectors.toList()), baseHeaders, targetPaths, memoryBudget);
+    List<ProjectAnalysisQuality> projectsQuality = new ArrayList<>(compared.keySet());
+    List<String> locComparisons = new ArrayList<>(compared.values());
 
     System.out.println("Diff processing done");
 
@@ -66,13 +69,76 @@ public class AnalysisResultFromFile {
 
       AnalysisQualityProcessing analysisQualityProcessing2 = new AnalysisQualityProcessing(true, "src/main/output_commons/");
       analysisQualityProcessing2.process(projectsQuality);
-      compareLoc(projectsQuality);
+      compareLoc(locComparisons);
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
-  private static String getTargetName(String project){
-    return project.replace("old","new");
+  /**
+   * Maps the snapshot files each pair was read from, sets the differences of their issues on the base header and
+   * compares their LOC, then releases them: only the snapshots of {@code LOADING_THREADS} pairs are mapped at a time.
+   * Returns the LOC comparison of each project compared; projects that fail are reported and left out.
+   */
+  private static Map<ProjectAnalysisQuality, String> compareProjects(List<ProjectAnalysisQuality> projectsQuality,
+    Map<ProjectAnalysisQuality, Path> basePaths, Map<Component, Path> targetPaths,
+    SnapshotStore.MemoryBudget memoryBudget) throws IOException {
+    List<Future<String>> comparisons = new ArrayList<>(projectsQuality.size());
+    try (ExecutorService executor = Executors.newFixedThreadPool(LOADING_THREADS)) {
+      for (ProjectAnalysisQuality paq : projectsQuality) {
+        comparisons.add(executor.submit(() -> {
+          String projectKey = paq.getBaseComponent().getKey();
+          try (SnapshotStore.MappedSnapshots snapshots = SnapshotStore.map(memoryBudget,
+            basePaths.get(paq), targetPaths.get(paq.getTargetComponent()))) {
+            ProjectAnalysisResult base = snapshots.get(0).getBaseComponentResult();
+            ProjectAnalysisResult target = snapshots.get(1).getBaseComponentResult();
+            paq.setDifferences(ProjectAnalysis.processDifferences(base, target));
+            return getLocComparison(projectKey, base, target);
+          } catch (IOException | RuntimeException exception) {
+            System.out.println("[WARN] Skipping " + projectKey + ", its snapshots cannot be compared: " + exception);
+            return null;
+          }
+        }));
+      }
+      Map<ProjectAnalysisQuality, String> locComparisons = new LinkedHashMap<>();
+      try {
+        for (int i = 0; i < comparisons.size(); i++) {
+          String locComparison = result(comparisons.get(i), projectsQuality.get(i));
+          if (locComparison != null) {
+            locComparisons.put(projectsQuality.get(i), locComparison);
+          }
+        }
+      } catch (IOException exception) {
+        // Closing the executor waits for the projects still compared
+        comparisons.forEach(comparison -> comparison.cancel(true));
+        throw exception;
+      }
+      return locComparisons;
+    }
+  }
+
+  private static String result(Future<String> comparison, ProjectAnalysisQuality paq) throws IOException {
+    try {
+      return comparison.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while comparing " + paq.getBaseComponent().getKey());
+    } catch (ExecutionException exception) {
+      throw new IOException("Failed to compare " + paq.getBaseComponent().getKey(), exception.getCause());
+    }
+  }
+
+  /**
+   * Pairs listed in the file of {@code EXTRACTOR_PAIRING_FILE} come first, then the old/new and autoscan naming.
+   */
+  private static ProjectPairing createPairing() throws IOException {
+    List<ProjectPairing.Rule> rules = new ArrayList<>();
+    String pairingFile = System.getenv("EXTRACTOR_PAIRING_FILE");
+    if (pairingFile != null) {
+      rules.add(ProjectPairing.mapping(Paths.get(pairingFile)));
+    }
+    rules.add(ProjectPairing.oldToNew());
+    rules.add(ProjectPairing.autoscanSuffix());
+    return new ProjectPairing(rules);
   }
 }
@@ -1,26 +1,46 @@
 package task;
 
-import com.google.gson.Gson;
 import extractor.ApiConnector;
+import extractor.EndpointMetricsWriter;
+import extractor.ExtractionJournal;
 import extractor.ProjectAnalysis;
-import java.io.FileWriter;
+import extractor.ProjectScheduler;
+import extractor.ResponseCache;
+import extractor.RuleRepository;
+import extractor.SnapshotStore;
 import java.io.IOException;
+import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import model.Component;
 import model.ProjectAnalysisQuality;
+import replay.FixtureStore;
 
+import static task.AnalysisResultFromFile.OUTPUT_FOLDER;
 import static task.AnalysisResultFromFile.OUTPUT_FOLDER_OLD;
 import static task.AnalysisResultFromFile.OUTPUT_FOLDER_NEW;
 import static task.AnalysisResultFromFile.AUTOSCAN_PREFIX;
 
 public class AnalysisResultWrite {
-  private static final String SQ_INSTANCE_URL = "https://peach.sonarsource.com";
+  private static final String SQ_INSTANCE_URL = Optional.ofNullable(System.getenv("EXTRACTOR_BASE_URL"))
+    .orElse("https://peach.sonarsource.com");
+  private static final String RULES_FOLDER = OUTPUT_FOLDER + "rules/";
+  private static final String JOURNAL_FOLDER = OUTPUT_FOLDER + "journal/";
+  private static final boolean VIRTUAL_THREADS = Boolean.parseBoolean(System.getenv("EXTRACTOR_VIRTUAL_THREADS"));
+  private static final int PLATFORM_THREADS = 10;
+  private static final boolean FORCE_EXTRACTION = Boolean.parseBoolean(System.getenv("EXTRACTOR_FORCE"));
+  private static final boolean DELTA_EXTRACTION = Boolean.parseBoolean(System.getenv("EXTRACTOR_DELTA"));
+  private static final ProjectAnalysis.IssueExtractionMode ISSUE_EXTRACTION_MODE = Optional
+    .ofNullable(System.getenv("EXTRACTOR_ISSUE_MODE"))
+    .map(mode -> ProjectAnalysis.IssueExtractionMode.valueOf(mode.trim().toUpperCase(Locale.ROOT)))
+    .orElse(ProjectAnalysis.IssueExtractionMode.PROJECT);
 
   private static final List<String> projects = List.of(
     "mudblazor",
@@ -36,39 +56,86 @@ public class AnalysisResultWrite {
   );
 
   public static void main(String[] args) throws IOException {
-    ExtractStatistics(true);
-    ExtractStatistics(false);
+    // Old and new projects share one connector, and the rules of their quality profiles
+    ApiConnector apiConnector = createApiConnector();
+    ResponseCache.fromEnvironment().ifPresent(apiConnector.async()::withResponseCache);
+    String recordDirectory = System.getenv("EXTRACTOR_RECORD_DIR");
+    if (recordDirectory != null) {
+      apiConnector.async().withFixtureRecorder(new FixtureStore(Paths.get(recordDirectory)));
+    }
+    RuleRepository ruleRepository = new RuleRepository(apiConnector.async(), RULES_FOLDER);
+    ExtractStatistics(apiConnector, ruleRepository, true);
+    ExtractStatistics(apiConnector, ruleRepository, false);
+    EndpointMetricsWriter.write(apiConnector.async().getEndpointStatistics(), Paths.get(OUTPUT_FOLDER));
   }
 
-  private static void ExtractStatistics(boolean isOldVersion) throws IOException {
-    ApiConnector apiConnector = new ApiConnector(SQ_INSTANCE_URL);
-    ProjectAnalysis projectAnalysis = new ProjectAnalysis(apiConnector, null);
-
+  private static void ExtractStatistics(ApiConnector apiConnector, RuleRepository ruleRepository, boolean isOldVersion)
+    throws IOException {
     String outputFolder = isOldVersion ? OUTPUT_FOLDER_OLD : OUTPUT_FOLDER_NEW;
+    SnapshotStore snapshotStore = new SnapshotStore(outputFolder);
+    ExtractionJournal journal = new ExtractionJournal(JOURNAL_FOLDER);
+    ProjectAnalysis projectAnalysis = new ProjectAnalysis(apiConnector, null)
+      .withPreviousSnapshots(snapshotStore)
+      .withRuleRepository(ruleRepository)
+      .withIssueExtractionMode(ISSUE_EXTRACTION_MODE)
+      .withDeltaExtraction(DELTA_EXTRACTION)
+      .withJournal(journal);
 
     List<Component> components = apiConnector.getProjects(getProjectPaths(isOldVersion));
+    if (!FORCE_EXTRACTION) {
+      components = projectAnalysis.withNewAnalysis(components);
+    }
+    ProjectScheduler.Schedule schedule = new ProjectScheduler(apiConnector.async(), snapshotStore,
+      VIRTUAL_THREADS ? Integer.MAX_VALUE : PLATFORM_THREADS).plan(components);
+    System.out.println("Extraction order: " + schedule);
 
-    Gson gson = new Gson();
     Files.createDirectories(Paths.get(outputFolder));
 
-    ExecutorService executor = Executors.newFixedThreadPool(10);
-    for (Component component : components) {
-      executor.submit(() -> {
-        try {
-          System.out.println("Running for project key: " + component.getKey());
-          ProjectAnalysisQuality paq = projectAnalysis.toAnalysisQuality(component);
-          ProjectAnalysisQuality paqExtracted = projectAnalysis.extractResult(paq);
-          try (FileWriter fileWriter = new FileWriter(
-              outputFolder + paqExtracted.getBaseComponent().getKey().replace(":", "_"))) {
-            gson.toJson(paqExtracted, fileWriter);
+    long start = System.currentTimeMillis();
+    // Closing the executor waits for every project to complete
+    try (ExecutorService executor = createProjectExecutor()) {
+      for (Component component : schedule.getProjects()) {
+        executor.submit(() -> {
+          try {
+            System.out.println("Running for project key: " + component.getKey());
+            ProjectAnalysisQuality paq = projectAnalysis.toAnalysisQuality(component);
+            ProjectAnalysisQuality paqExtracted = projectAnalysis.extractResult(paq);
+            snapshotStore.write(paqExtracted);
+            journal.complete(component.getKey());
+            System.out.println("Done with project key: " + component.getKey() + " (" + apiConnector.async().getLimiter()
+              + ", " + apiConnector.async().getCoalescedRequests() + " requests coalesced, "
+              + apiConnector.async().getMemoizedRequests() + " memoized)");
+          } catch (Exception e) {
+            System.err.println("[ERROR] Fail to download " + component + ": " + e.getMessage());
           }
-        } catch (Exception e) {
-          System.err.println("[ERROR] Fail to download " + component + ": " + e.getMessage());
-        }
-      });
+        });
+      }
+    }
+    System.out.println("Makespan: predicted " + schedule.getPredictedMakespanMillis() / 1000 + " s, actual "
+      + (System.currentTimeMillis() - start) / 1000 + " s");
+  }
 
+  /**
+   * With {@code EXTRACTOR_VIRTUAL_THREADS=true}, the HTTP client and the response decoding run on virtual threads.
+   */
+  private static ApiConnector createApiConnector() {
+    if (!VIRTUAL_THREADS) {
+      return new ApiConnector(SQ_INSTANCE_URL);
     }
-    executor.shutdown();
+    HttpClient httpClient = HttpClient.newBuilder()
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+    ApiConnector apiConnector = new ApiConnector(SQ_INSTANCE_URL, httpClient);
+    apiConnector.async().withDecodeExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    return apiConnector;
+  }
+
+  /**
+   * One virtual thread per project, or a fixed pool of platform threads. Either way the number of requests actually
+   * sent to the server is bounded by the connector's adaptive limiter, not by the number of threads.
+   */
+  private static ExecutorService createProjectExecutor() {
+    return VIRTUAL_THREADS ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_THREADS);
   }
 
   private static List<String> getProjectPaths(boolean isOldVersion) {
@@ -0,0 +1,43 @@
+package task;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+import replay.FixtureStore;
+import replay.ReplayServer;
+
+/**
+ * Serves fixtures recorded with {@code EXTRACTOR_RECORD_DIR} until stopped, so that {@link AnalysisResultWrite} can
+ * run against them with {@code EXTRACTOR_BASE_URL=http://localhost:<port>}.
+ * <p>
+ * Arguments: fixture directory, then port (9000 by default). Latency, jitter, error rate and throttling are read from
+ * {@code REPLAY_LATENCY_MS}, {@code REPLAY_JITTER_MS}, {@code REPLAY_ERROR_RATE} and {@code REPLAY_MAX_RPS}.
+ */
+public class FixtureReplay {
+
+  private static final int DEFAULT_PORT = 9000;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 1) {
+      System.err.println("Usage: FixtureReplay <fixture directory> [port]");
+      System.exit(1);
+    }
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+    ReplayServer server = new ReplayServer(new FixtureStore(Paths.get(args[0])))
+      .withLatency(Duration.ofMillis(env("REPLAY_LATENCY_MS", 0)), Duration.ofMillis(env("REPLAY_JITTER_MS", 0)))
+      .withErrorRate(Optional.ofNullable(System.getenv("REPLAY_ERROR_RATE")).map(Double::parseDouble).orElse(0.0))
+      .withMaxRequestsPerSecond((int) env("REPLAY_MAX_RPS", Integer.MAX_VALUE))
+      .start(port);
+    System.out.println("Replaying on " + server.getBaseUrl());
+
+    while (true) {
+      Thread.sleep(Duration.ofSeconds(10).toMillis());
+      System.out.println(server);
+    }
+  }
+
+  private static long env(String name, long defaultValue) {
+    return Optional.ofNullable(System.getenv(name)).map(Long::parseLong).orElse(defaultValue);
+  }
+}
@@ -0,0 +1,142 @@
+package task;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import model.ProjectAnalysisQuality;
+
+/**
+ * Pairs each base project with its target project, by name.
+ * <p>
+ * Target projects are indexed once by their normalized name. Each base project then tries the rules in order, and is
+ * paired with the first target whose name a rule gives.
+ */
+public class ProjectPairing {
+
+  /**
+   * Name of the target project of a base project, if this rule applies to it.
+   */
+  public interface Rule {
+    Optional<String> targetName(String baseName);
+  }
+
+  private final List<Rule> rules;
+
+  public ProjectPairing(List<Rule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * {@code autoscan-old-<project>} is paired with {@code autoscan-new-<project>}.
+   */
+  public static Rule oldToNew() {
+    return baseName -> baseName.contains("old") ? Optional.of(baseName.replace("old", "new")) : Optional.empty();
+  }
+
+  /**
+   * {@code <project>} is paired with {@code <project>-autoscan}.
+   */
+  public static Rule autoscanSuffix() {
+    return baseName -> Optional.of(baseName + "-autoscan");
+  }
+
+  /**
+   * Pairs read from a properties file, one {@code <base project name>=<target project name>} per line.
+   */
+  public static Rule mapping(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    Map<String, String> targetNames = new HashMap<>();
+    for (String baseName : properties.stringPropertyNames()) {
+      targetNames.put(normalize(baseName), properties.getProperty(baseName));
+    }
+    return baseName -> Optional.ofNullable(targetNames.get(normalize(baseName)));
+  }
+
+  /**
+   * Sets the target component and result of the base projects that have a target.
+   */
+  public Result pair(List<ProjectAnalysisQuality> bases, List<ProjectAnalysisQuality> targets) {
+    // First target of each name, as names are compared ignoring case
+    Map<String, ProjectAnalysisQuality> targetsByName = new HashMap<>(targets.size() * 4 / 3 + 1);
+    for (ProjectAnalysisQuality target : targets) {
+      targetsByName.putIfAbsent(normalize(target.getBaseComponent().getName()), target);
+    }
+
+    Set<ProjectAnalysisQuality> pairedTargets = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<ProjectAnalysisQuality> unmatchedBases = new ArrayList<>();
+    for (ProjectAnalysisQuality base : bases) {
+      ProjectAnalysisQuality target = target(base.getBaseComponent().getName(), targetsByName);
+      if (target == null) {
+        unmatchedBases.add(base);
+        continue;
+      }
+      base.setTargetComponent(target.getBaseComponent());
+      base.setTargetComponentResult(target.getBaseComponentResult());
+      pairedTargets.add(target);
+    }
+
+    List<ProjectAnalysisQuality> unmatchedTargets = new ArrayList<>();
+    for (ProjectAnalysisQuality target : targets) {
+      if (!pairedTargets.contains(target)) {
+        unmatchedTargets.add(target);
+      }
+    }
+    return new Result(bases.size() - unmatchedBases.size(), unmatchedBases, unmatchedTargets);
+  }
+
+  private ProjectAnalysisQuality target(String baseName, Map<String, ProjectAnalysisQuality> targetsByName) {
+    for (Rule rule : rules) {
+      Optional<ProjectAnalysisQuality> target = rule.targetName(baseName).map(name -> targetsByName.get(normalize(name)));
+      if (target.isPresent()) {
+        return target.get();
+      }
+    }
+    return null;
+  }
+
+  private static String normalize(String name) {
+    return name.trim().toLowerCase(Locale.ROOT);
+  }
+
+  public static class Result {
+
+    private final int paired;
+    private final List<ProjectAnalysisQuality> unmatchedBases;
+    private final List<ProjectAnalysisQuality> unmatchedTargets;
+
+    Result(int paired, List<ProjectAnalysisQuality> unmatchedBases, List<ProjectAnalysisQuality> unmatchedTargets) {
+      this.paired = paired;
+      this.unmatchedBases = unmatchedBases;
+      this.unmatchedTargets = unmatchedTargets;
+    }
+
+    public int getPaired() {
+      return paired;
+    }
+
+    public List<ProjectAnalysisQuality> getUnmatchedBases() {
+      return unmatchedBases;
+    }
+
+    /**
+     * Targets paired with no base project.
+     */
+    public List<ProjectAnalysisQuality> getUnmatchedTargets() {
+      return unmatchedTargets;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package task;
+
+import extractor.SnapshotStore;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import model.ProjectAnalysisQuality;
+
+/**
+ * Converts snapshots between the binary format written by {@link AnalysisResultWrite} and JSON.
+ * <p>
+ * Arguments: {@code export <snapshot> <json file>}, or {@code import <json file> <output folder>}. An imported
+ * snapshot is written under its project key, as {@link AnalysisResultWrite} would.
+ */
+public class SnapshotConvert {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3 || !(args[0].equals("export") || args[0].equals("import"))) {
+      System.err.println("Usage: SnapshotConvert export <snapshot> <json file> | import <json file> <output folder>");
+      System.exit(1);
+    }
+    ProjectAnalysisQuality projectAnalysisQuality = SnapshotStore.read(Paths.get(args[1]));
+    if (args[0].equals("export")) {
+      SnapshotStore.writeJson(projectAnalysisQuality, Paths.get(args[2]));
+    } else {
+      SnapshotStore snapshotStore = new SnapshotStore(args[2]);
+      snapshotStore.write(projectAnalysisQuality);
+      Path path = snapshotStore.path(projectAnalysisQuality.getBaseComponent().getKey());
+      System.out.println("Imported " + path);
+    }
+  }
+}
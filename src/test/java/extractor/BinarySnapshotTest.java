@@ -0,0 +1,253 @@
+package extractor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import model.Component;
+import model.Issue;
+import model.ProjectAnalysisQuality;
+import model.ProjectAnalysisResult;
+import model.ProjectBranch;
+import model.TextRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySnapshotTest {
+
+  private static final String FILE_A = "old-project:src/A.cs";
+  private static final String FILE_B = "old-project:src/B.cs";
+
+  @TempDir
+  Path folder;
+
+  @Test
+  void decodeAll_returns_the_snapshot_as_written() throws IOException {
+    ProjectAnalysisQuality written = snapshot();
+
+    ProjectAnalysisQuality read = SnapshotReader.open(write(written)).decodeAll();
+
+    assertEquals("old-project", read.getBaseComponent().getKey());
+    assertEquals("new-project", read.getTargetComponent().getKey());
+    assertResult(written.getBaseComponentResult(), read.getBaseComponentResult());
+    assertResult(written.getTargetComponentResult(), read.getTargetComponentResult());
+  }
+
+  @Test
+  void mapped_issues_are_grouped_and_indexed_by_component() throws IOException {
+    SnapshotReader reader = SnapshotReader.open(write(snapshot()));
+    SnapshotReader.Result result = reader.getBaseResult();
+
+    assertEquals(4, result.getIssueCount());
+    assertEquals(List.of("i1", "i3", "i2", "i4"), keys(result.getIssues()));
+    assertEquals(List.of(FILE_A, FILE_B), result.getComponentsWithIssues());
+    assertEquals(List.of("i1", "i3"), keys(result.getIssuesOfComponent(FILE_A)));
+    assertEquals(List.of("i2", "i4"), keys(result.getIssuesOfComponent(FILE_B)));
+    assertTrue(result.getIssuesOfComponent("old-project:src/Missing.cs").isEmpty());
+
+    ProjectAnalysisResult mapped = reader.getProjectAnalysisQuality().getBaseComponentResult();
+    assertSame(mapped.getIssues(), ComponentIssueIndex.of(mapped));
+    assertEquals(List.of("i2", "i4"), keys(ComponentIssueIndex.of(mapped).getIssuesOfComponent(FILE_B)));
+  }
+
+  @Test
+  void header_holds_everything_but_the_tables() throws IOException {
+    Path path = write(snapshot());
+
+    ProjectAnalysisQuality header;
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      header = BinarySnapshot.readHeader(inputStream);
+    }
+
+    ProjectAnalysisResult base = header.getBaseComponentResult();
+    assertEquals("10.0", base.getServerVersion());
+    assertEquals(Map.of("cs", 120), base.getLocPerLanguages());
+    assertEquals("2024-05-02T10:00:00+0000", base.getBranch().getAnalysisDate());
+    assertNull(base.getIssues());
+    assertNull(base.getComponents());
+    assertNull(base.getComponentRevisions());
+  }
+
+  @Test
+  void missing_result_and_tables_stay_missing() throws IOException {
+    ProjectAnalysisQuality written = snapshot();
+    written.setTargetComponent(null);
+    written.setTargetComponentResult(null);
+    written.getBaseComponentResult().setComponentRevisions(null);
+
+    SnapshotReader reader = SnapshotReader.open(write(written));
+
+    assertNull(reader.getTargetResult());
+    ProjectAnalysisQuality read = reader.decodeAll();
+    assertFalse(read.hasTarget());
+    assertNull(read.getTargetComponentResult());
+    assertNull(read.getBaseComponentResult().getComponentRevisions());
+  }
+
+  @Test
+  void other_format_versions_are_rejected() throws IOException {
+    Path path = write(snapshot());
+    byte[] bytes = Files.readAllBytes(path);
+    ByteBuffer.wrap(bytes).putInt(Integer.BYTES, BinarySnapshot.VERSION - 1);
+    Files.write(path, bytes);
+
+    assertThrows(IOException.class, () -> SnapshotReader.open(path));
+  }
+
+  @Test
+  void json_snapshots_are_not_binary() throws IOException {
+    Path path = folder.resolve("snapshot.json");
+    SnapshotStore.writeJson(snapshot(), path);
+
+    assertFalse(BinarySnapshot.isBinary(Files.readAllBytes(path)));
+    ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    BinarySnapshot.write(snapshot(), binary);
+    assertTrue(BinarySnapshot.isBinary(binary.toByteArray()));
+  }
+
+  private Path write(ProjectAnalysisQuality snapshot) throws IOException {
+    Path path = Files.createTempFile(folder, "snapshot", ".bin");
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      BinarySnapshot.write(snapshot, outputStream);
+    }
+    return path;
+  }
+
+  private static void assertResult(ProjectAnalysisResult expected, ProjectAnalysisResult actual) {
+    assertEquals(expected.getServerVersion(), actual.getServerVersion());
+    assertEquals(expected.getLocPerLanguages(), actual.getLocPerLanguages());
+    assertEquals(expected.getComponentRevisions(), actual.getComponentRevisions());
+
+    assertEquals(expected.getComponents().size(), actual.getComponents().size());
+    for (int i = 0; i < expected.getComponents().size(); i++) {
+      Component expectedFile = expected.getComponents().get(i);
+      Component actualFile = actual.getComponents().get(i);
+      assertEquals(expectedFile.getKey(), actualFile.getKey());
+      assertEquals(expectedFile.getName(), actualFile.getName());
+      assertEquals(expectedFile.getQualifier(), actualFile.getQualifier());
+      assertEquals(expectedFile.getLanguage(), actualFile.getLanguage());
+      assertEquals(expectedFile.getOrganization(), actualFile.getOrganization());
+      assertEquals(expectedFile.getAnalysisDate(), actualFile.getAnalysisDate());
+      assertEquals(expectedFile.isEligible(), actualFile.isEligible());
+    }
+
+    // Issues are written grouped by component
+    List<Issue> expectedIssues = new ArrayList<>(expected.getIssues());
+    expectedIssues.sort((first, second) -> Integer.compare(
+      firstIndexOf(expected.getIssues(), first.getComponent()), firstIndexOf(expected.getIssues(), second.getComponent())));
+    assertEquals(expectedIssues.size(), actual.getIssues().size());
+    for (int i = 0; i < expectedIssues.size(); i++) {
+      Issue expectedIssue = expectedIssues.get(i);
+      Issue actualIssue = actual.getIssues().get(i);
+      assertEquals(expectedIssue.getKey(), actualIssue.getKey());
+      assertEquals(expectedIssue.getRule(), actualIssue.getRule());
+      assertEquals(expectedIssue.getComponent(), actualIssue.getComponent());
+      assertEquals(expectedIssue.getSeverity(), actualIssue.getSeverity());
+      assertEquals(expectedIssue.getStatus(), actualIssue.getStatus());
+      assertEquals(expectedIssue.getType(), actualIssue.getType());
+      assertEquals(expectedIssue.getTextRange(), actualIssue.getTextRange());
+    }
+  }
+
+  private static int firstIndexOf(List<Issue> issues, String component) {
+    for (int i = 0; i < issues.size(); i++) {
+      if (issues.get(i).getComponent().equals(component)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static List<String> keys(List<Issue> issues) {
+    List<String> keys = new ArrayList<>();
+    issues.forEach(issue -> keys.add(issue.getKey()));
+    return keys;
+  }
+
+  private static ProjectAnalysisQuality snapshot() {
+    ProjectBranch branch = new ProjectBranch();
+    branch.setName("master");
+    branch.setAnalysisDate("2024-05-02T10:00:00+0000");
+
+    ProjectAnalysisResult base = new ProjectAnalysisResult()
+      .setServerVersion("10.0")
+      .setIssues(List.of(
+        issue("i1", "csharpsquid:S100", FILE_A, "MAJOR", textRange(3, 3, 4, 20)),
+        issue("i2", "csharpsquid:S101", FILE_B, "CRITICAL", null),
+        // Wider than the 16-bit encoding of narrow text ranges
+        issue("i3", "csharpsquid:S100", FILE_A, null, textRange(10, 100_000, 0, 70_000)),
+        issue("i4", "external_roslyn:CA1000", FILE_B, "MINOR", textRange(1, 2, 0, 1))));
+    base.setComponents(List.of(file(FILE_A, true), file(FILE_B, false)));
+    base.setComponentRevisions(Map.of(FILE_A, "2024-04-01T00:00:00+0000", FILE_B, "2024-04-02T00:00:00+0000"));
+    base.setLocPerLanguages(Map.of("cs", 120));
+    base.setBranch(branch);
+
+    ProjectAnalysisResult target = new ProjectAnalysisResult()
+      .setServerVersion("10.1")
+      .setIssues(List.of(issue("j1", "csharpsquid:S100", "new-project:src/A.cs", "MAJOR", textRange(3, 3, 4, 20))));
+    target.setComponents(List.of(file("new-project:src/A.cs", true)));
+    target.setLocPerLanguages(Map.of("cs", 100));
+
+    ProjectAnalysisQuality snapshot = new ProjectAnalysisQuality();
+    snapshot.setBaseComponent(project("old-project"));
+    snapshot.setBaseComponentResult(base);
+    snapshot.setTargetComponent(project("new-project"));
+    snapshot.setTargetComponentResult(target);
+    return snapshot;
+  }
+
+  private static Issue issue(String key, String rule, String component, String severity, TextRange textRange) {
+    Issue issue = new Issue();
+    issue.setKey(key);
+    issue.setRule(rule);
+    issue.setComponent(component);
+    issue.setSeverity(severity);
+    issue.setStatus("OPEN");
+    issue.setType("CODE_SMELL");
+    issue.setTextRange(textRange);
+    return issue;
+  }
+
+  private static TextRange textRange(int startLine, int endLine, int startOffset, int endOffset) {
+    TextRange textRange = new TextRange();
+    textRange.setStartLine(startLine);
+    textRange.setEndLine(endLine);
+    textRange.setStartOffset(startOffset);
+    textRange.setEndOffset(endOffset);
+    return textRange;
+  }
+
+  private static Component file(String key, boolean eligible) {
+    Component file = new Component();
+    file.setKey(key);
+    file.setName(key.substring(key.lastIndexOf('/') + 1));
+    file.setQualifier("FIL");
+    file.setLanguage("cs");
+    file.setOrganization("org");
+    file.setAnalysisDate(new Date(1_714_644_000_000L));
+    file.setEligible(eligible);
+    return file;
+  }
+
+  private static Component project(String key) {
+    Component project = new Component();
+    project.setKey(key);
+    project.setName(key);
+    project.setQualifier("TRK");
+    return project;
+  }
+}
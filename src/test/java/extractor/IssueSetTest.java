@@ -0,0 +1,79 @@
+package extractor;
+
+import model.Issue;
+import model.TextRange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IssueSetTest {
+
+  @Test
+  void issues_of_both_projects_match_on_rule_text_range_and_file() {
+    IssueSet set = new IssueSet(4);
+
+    assertTrue(set.add(issue("base-1", "csharpsquid:S100", "old:src/A.cs", 3)));
+
+    assertTrue(set.contains(issue("target-1", "csharpsquid:S100", "new:src/A.cs", 3)));
+    assertFalse(set.contains(issue("target-2", "csharpsquid:S101", "new:src/A.cs", 3)));
+    assertFalse(set.contains(issue("target-3", "csharpsquid:S100", "new:src/B.cs", 3)));
+    assertFalse(set.contains(issue("target-4", "csharpsquid:S100", "new:src/A.cs", 4)));
+    assertFalse(set.contains(issue("target-5", "csharpsquid:S100", "new:src/A.cs", null)));
+  }
+
+  @Test
+  void equal_issues_are_added_once() {
+    IssueSet set = new IssueSet(4);
+
+    assertTrue(set.add(issue("i1", "csharpsquid:S100", "old:src/A.cs", null)));
+    assertFalse(set.add(issue("i2", "csharpsquid:S100", "old:src/A.cs", null)));
+    assertTrue(set.add(issue("i3", "csharpsquid:S100", "old:src/A.cs", 1)));
+
+    assertEquals(2, set.size());
+  }
+
+  @Test
+  void holds_as_many_issues_as_expected() {
+    int count = 10_000;
+    IssueSet set = new IssueSet(count);
+
+    for (int i = 0; i < count; i++) {
+      assertTrue(set.add(issue("i" + i, "csharpsquid:S" + (i % 400), "old:src/File" + (i % 97) + ".cs", i)));
+    }
+
+    assertEquals(count, set.size());
+    for (int i = 0; i < count; i++) {
+      assertTrue(set.contains(issue("j" + i, "csharpsquid:S" + (i % 400), "new:src/File" + (i % 97) + ".cs", i)));
+    }
+    assertFalse(set.contains(issue("j", "csharpsquid:S0", "new:src/File0.cs", count)));
+  }
+
+  @Test
+  void rejects_issues_beyond_its_capacity() {
+    IssueSet set = new IssueSet(1);
+    for (int i = 0; i < 12; i++) {
+      set.add(issue("i" + i, "csharpsquid:S100", "old:src/A.cs", i));
+    }
+
+    assertThrows(IllegalStateException.class, () -> set.add(issue("i12", "csharpsquid:S100", "old:src/A.cs", 12)));
+  }
+
+  private static Issue issue(String key, String rule, String component, Integer line) {
+    Issue issue = new Issue();
+    issue.setKey(key);
+    issue.setRule(rule);
+    issue.setComponent(component);
+    if (line != null) {
+      TextRange textRange = new TextRange();
+      textRange.setStartLine(line);
+      textRange.setEndLine(line);
+      textRange.setStartOffset(0);
+      textRange.setEndOffset(10);
+      issue.setTextRange(textRange);
+    }
+    return issue;
+  }
+}